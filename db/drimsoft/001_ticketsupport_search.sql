@@ -0,0 +1,16 @@
+-- Búsqueda de texto completo de tickets (GET /tickets/search).
+-- Se aplica una vez sobre la base de Drimsoft, conectando directo (puerto 5432): CREATE INDEX
+-- CONCURRENTLY no puede correr dentro de una transacción ni a través del pooler.
+
+-- Documento con pesos: el título pesa más que la descripción y esta más que la respuesta.
+-- Al ser una columna generada, PostgreSQL la mantiene sola en cada INSERT y UPDATE.
+ALTER TABLE ticketsupport
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('spanish', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('spanish', coalesce(description, '')), 'B') ||
+        setweight(to_tsvector('spanish', coalesce(answer, '')), 'C')
+    ) STORED;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ticketsupport_search_vector_idx
+    ON ticketsupport USING GIN (search_vector);
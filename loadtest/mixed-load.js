@@ -0,0 +1,49 @@
+// Ráfaga de listados de tickets (Drimsoft) en paralelo con búsquedas de usuarios (Planifika).
+// Correr una vez con VIRTUAL_THREADS_ENABLED=false y otra con true, y comparar
+// http_reqs y el p(99) de http_req_duration de cada escenario.
+//
+//   k6 run -e BASE_URL=http://localhost:8080/api/v1 -e TOKEN=<jwt> loadtest/mixed-load.js
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080/api/v1';
+const USER_ID = __ENV.USER_ID || '1';
+const params = { headers: { Authorization: `Bearer ${__ENV.TOKEN}` } };
+
+export const options = {
+  scenarios: {
+    ticket_storm: {
+      executor: 'constant-arrival-rate',
+      exec: 'tickets',
+      rate: Number(__ENV.TICKETS_RPS || 300),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '2m',
+      preAllocatedVUs: 200,
+      maxVUs: 1000,
+    },
+    user_lookups: {
+      executor: 'constant-arrival-rate',
+      exec: 'users',
+      rate: Number(__ENV.USERS_RPS || 50),
+      timeUnit: '1s',
+      duration: __ENV.DURATION || '2m',
+      preAllocatedVUs: 20,
+      maxVUs: 200,
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+  thresholds: {
+    'http_req_duration{scenario:user_lookups}': ['p(99)<500'],
+    'http_req_duration{scenario:ticket_storm}': ['p(99)<5000'],
+  },
+};
+
+export function tickets() {
+  const res = http.get(`${BASE_URL}/tickets/paged?page=0&size=50`, params);
+  check(res, { 'tickets 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
+
+export function users() {
+  const res = http.get(`${BASE_URL}/users/${USER_ID}`, params);
+  check(res, { 'user 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
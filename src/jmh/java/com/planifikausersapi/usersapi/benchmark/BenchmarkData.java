@@ -0,0 +1,82 @@
+package com.planifikausersapi.usersapi.benchmark;
+
+import com.planifikausersapi.usersapi.cache.SharedCacheTier;
+import com.planifikausersapi.usersapi.cache.UserPlanifikaCache;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Datos en memoria compartidos por los benchmarks; reemplazan a los repositorios reales.
+ */
+public final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    public static List<TicketStatus> ticketStatuses() {
+        List<TicketStatus> statuses = new ArrayList<>();
+        String[] names = {"PENDING", "IN_PROGRESS", "ANSWERED", "CLOSED"};
+        for (int i = 0; i < names.length; i++) {
+            TicketStatus status = new TicketStatus();
+            status.setIdTicketStatus(i + 1);
+            status.setName(names[i]);
+            statuses.add(status);
+        }
+        return statuses;
+    }
+
+    public static List<TicketSupport> tickets(int rows) {
+        List<TicketSupport> tickets = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            TicketSupport ticket = new TicketSupport();
+            ticket.setIdTickets(i);
+            ticket.setIdPlanifikaUser(i % 50 + 1);
+            ticket.setIdTicketStatus(i % 4 + 1);
+            ticket.setTitle("No puedo sincronizar mi horario " + i);
+            ticket.setDescription("Al iniciar sesión desde el SIU el calendario aparece vacío desde ayer.");
+            ticket.setAnswer(i % 3 == 0 ? "Se corrigió el token de sincronización." : null);
+            ticket.setIdDrimsoftUser(i % 3 == 0 ? 2 : null);
+            tickets.add(ticket);
+        }
+        return tickets;
+    }
+
+    public static UserPlanifika user(int id, UUID supabaseUserId) {
+        UserPlanifika user = new UserPlanifika();
+        user.setIdUser(id);
+        user.setName("Usuario " + id);
+        user.setPhotoUrl("https://cdn.example.com/avatars/" + id + ".png");
+        user.setIdUserStatus(1);
+        user.setIdUserType(id % 3 + 1);
+        user.setIdOrganization(id % 10 + 1);
+        user.setSupabaseUserId(supabaseUserId);
+        return user;
+    }
+
+    public static List<UserPlanifika> users(int rows) {
+        List<UserPlanifika> users = new ArrayList<>(rows);
+        for (int i = 1; i <= rows; i++) {
+            users.add(user(i, UUID.randomUUID()));
+        }
+        return users;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static UserPlanifikaCache userCache() {
+        StaticListableBeanFactory empty = new StaticListableBeanFactory();
+        ObjectProvider<SharedCacheTier<UUID, UserPlanifika>> noSharedTier =
+                (ObjectProvider) empty.getBeanProvider(SharedCacheTier.class);
+        return new UserPlanifikaCache(10_000, Duration.ofMinutes(5), noSharedTier,
+                empty.getBeanProvider(InvalidationBus.class), new SimpleMeterRegistry());
+    }
+}
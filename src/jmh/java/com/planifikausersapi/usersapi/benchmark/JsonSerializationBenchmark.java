@@ -0,0 +1,58 @@
+package com.planifikausersapi.usersapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización Jackson de los listados de usuarios y tickets, con la misma configuración
+ * base que usa Spring MVC.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "500"})
+    int rows;
+
+    private ObjectMapper objectMapper;
+    private List<UserPlanifika> users;
+    private List<TicketSupport> tickets;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        users = BenchmarkData.users(rows);
+        tickets = BenchmarkData.tickets(rows);
+    }
+
+    @Benchmark
+    public byte[] serializeUsers() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    @Benchmark
+    public byte[] serializeTickets() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(tickets);
+    }
+}
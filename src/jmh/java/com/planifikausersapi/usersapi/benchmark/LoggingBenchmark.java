@@ -0,0 +1,162 @@
+package com.planifikausersapi.usersapi.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.planifikausersapi.usersapi.logging.SamplingTurboFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de una línea de log de login para el hilo que atiende el request, con 8 hilos en
+ * paralelo: System.out.println (PrintStream sincronizado, como antes), logback síncrono,
+ * logback detrás de AsyncAppender (la configuración de logback-spring.xml) y el mismo async con
+ * muestreo 1 de 10. La salida es un stream que gasta writeCost tokens de CPU por escritura para
+ * simular la escritura en stdout.
+ *
+ * Con neverBlock=true, si el hilo escritor no da abasto el AsyncAppender descarta eventos:
+ * esto mide lo que paga el request, no cuántas líneas llegan a la consola.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"0", "200"})
+    long writeCost;
+
+    private PrintStream printStream;
+    private LoggerContext loggerContext;
+    private Logger syncLogger;
+    private Logger asyncLogger;
+    private Logger sampledLogger;
+    private UUID userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userId = UUID.randomUUID();
+        printStream = new PrintStream(new SlowOutputStream(writeCost), true);
+
+        loggerContext = new LoggerContext();
+        OutputStreamAppender<ILoggingEvent> syncAppender = outputAppender("sync");
+        OutputStreamAppender<ILoggingEvent> asyncTarget = outputAppender("async-target");
+        OutputStreamAppender<ILoggingEvent> sampledTarget = outputAppender("sampled-target");
+
+        syncLogger = logger("bench.sync", syncAppender);
+        asyncLogger = logger("bench.async", asyncAppender("async", asyncTarget));
+        sampledLogger = logger("bench.sampled", asyncAppender("sampled", sampledTarget));
+
+        SamplingTurboFilter sampling = new SamplingTurboFilter();
+        sampling.setContext(loggerContext);
+        sampling.setLoggerPrefix("bench.sampled");
+        sampling.setKeepOneIn(10);
+        sampling.start();
+        loggerContext.addTurboFilter(sampling);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loggerContext.stop();
+    }
+
+    @Benchmark
+    public void systemOut() {
+        printStream.println("Usuario encontrado - ID: " + userId + ", UserType: 3, Status: 1");
+    }
+
+    @Benchmark
+    public void logbackSync() {
+        syncLogger.info("Login externo de usuario {} (tipo {}, estado {})", userId, 3, 1);
+    }
+
+    @Benchmark
+    public void logbackAsync() {
+        asyncLogger.info("Login externo de usuario {} (tipo {}, estado {})", userId, 3, 1);
+    }
+
+    @Benchmark
+    public void logbackAsyncSampled() {
+        sampledLogger.info("Login externo de usuario {} (tipo {}, estado {})", userId, 3, 1);
+    }
+
+    private Logger logger(String name, Appender<ILoggingEvent> appender) {
+        Logger logger = loggerContext.getLogger(name);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private OutputStreamAppender<ILoggingEvent> outputAppender(String name) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("{\"@timestamp\":\"%d\",\"log.level\":\"%level\",\"log.logger\":\"%logger\","
+                + "\"message\":\"%msg\"}%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setName(name);
+        appender.setContext(loggerContext);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(new SlowOutputStream(writeCost));
+        appender.start();
+        return appender;
+    }
+
+    private AsyncAppender asyncAppender(String name, OutputStreamAppender<ILoggingEvent> target) {
+        AsyncAppender async = new AsyncAppender();
+        async.setName(name);
+        async.setContext(loggerContext);
+        async.setQueueSize(8192);
+        async.setDiscardingThreshold(0);
+        async.setNeverBlock(true);
+        async.setIncludeCallerData(false);
+        async.addAppender(target);
+        async.start();
+        return async;
+    }
+
+    private static final class SlowOutputStream extends OutputStream {
+
+        private final long cost;
+
+        SlowOutputStream(long cost) {
+            this.cost = cost;
+        }
+
+        @Override
+        public void write(int b) {
+            Blackhole.consumeCPU(cost);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            Blackhole.consumeCPU(cost);
+        }
+    }
+}
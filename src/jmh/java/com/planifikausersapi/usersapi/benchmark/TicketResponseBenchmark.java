@@ -0,0 +1,84 @@
+package com.planifikausersapi.usersapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado y serialización de un listado de tickets: el HashMap por fila que se usaba antes
+ * contra el record {@link TicketResponse}. Correr con -prof gc (ya incluido en el perfil jmh)
+ * y comparar gc.alloc.rate.norm entre ambos métodos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketResponseBenchmark {
+
+    @Param({"10", "500"})
+    int rows;
+
+    private ObjectMapper objectMapper;
+    private List<TicketSupport> tickets;
+    private Map<Integer, TicketStatus> statusesById;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tickets = BenchmarkData.tickets(rows);
+        statusesById = new HashMap<>();
+        for (TicketStatus status : BenchmarkData.ticketStatuses()) {
+            statusesById.put(status.getIdTicketStatus(), status);
+        }
+    }
+
+    @Benchmark
+    public byte[] legacyMaps() throws JsonProcessingException {
+        List<Map<String, Object>> response = new ArrayList<>(tickets.size());
+        for (TicketSupport ticket : tickets) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("idTickets", ticket.getIdTickets());
+            row.put("idPlanifikaUser", ticket.getIdPlanifikaUser());
+            row.put("idTicketStatus", ticket.getIdTicketStatus());
+            TicketStatus status = statusesById.get(ticket.getIdTicketStatus());
+            row.put("ticketStatusName", status != null ? status.getName() : null);
+            row.put("title", ticket.getTitle());
+            row.put("description", ticket.getDescription());
+            row.put("answer", ticket.getAnswer());
+            row.put("idDrimsoftUser", ticket.getIdDrimsoftUser());
+            response.add(row);
+        }
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] records() throws JsonProcessingException {
+        List<TicketResponse> response = new ArrayList<>(tickets.size());
+        for (TicketSupport ticket : tickets) {
+            response.add(TicketResponse.from(ticket, statusesById.get(ticket.getIdTicketStatus())));
+        }
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,52 @@
+package com.planifikausersapi.usersapi.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión de claims a authorities que hace SecurityConfig en cada petición autenticada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecurityConfigBenchmark {
+
+    private JwtAuthenticationConverter converter;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        converter = new SecurityConfig().jwtAuthenticationConverter();
+        jwt = Jwt.withTokenValue("benchmark-token")
+                .header("alg", "HS256")
+                .subject(UUID.randomUUID().toString())
+                .claim("role", "authenticated")
+                .claim("user_role", "support")
+                .claim("roles", List.of("agent", "admin"))
+                .claim("scope", "openid profile email")
+                .build();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken convert() {
+        return converter.convert(jwt);
+    }
+}
@@ -0,0 +1,74 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.planifikausersapi.usersapi.benchmark.BenchmarkData;
+import com.planifikausersapi.usersapi.dto.UserProfileResponse;
+import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+import com.planifikausersapi.usersapi.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Armado de la respuesta de /auth/me (getUserWithDatabaseInfo) con el JWT ya verificado y el
+ * repositorio simulado. Usa Schedulers.immediate() para medir solo el mapeo, no el salto de hilo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private static final String TOKEN = "benchmark-token";
+
+    private AuthService authService;
+    private Jwt jwt;
+
+    @Setup
+    public void setUp() {
+        UUID supabaseUserId = UUID.randomUUID();
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findBySupabaseUserId(supabaseUserId))
+                .thenReturn(Optional.of(BenchmarkData.user(1, supabaseUserId)));
+
+        authService = new AuthService(false, WebClient.create("http://localhost"),
+                new UpstreamGuard("benchmark", 20, 10, 0.5, Duration.ofSeconds(30), 3, 25, new SimpleMeterRegistry()),
+                userRepository,
+                BenchmarkData.userCache(), token -> {
+                    throw new IllegalStateException("El benchmark siempre entrega el JWT ya verificado");
+                }, Schedulers.immediate(),
+                // Sin caché de resultados: se mide la búsqueda completa en cada llamada
+                Duration.ZERO, 10_000, new SimpleMeterRegistry(), "benchmark-service-key");
+
+        jwt = Jwt.withTokenValue(TOKEN)
+                .header("alg", "HS256")
+                .subject(supabaseUserId.toString())
+                .claim("email", "ana@example.com")
+                .build();
+    }
+
+    @Benchmark
+    public UserProfileResponse getUserWithDatabaseInfo() {
+        return authService.getUserWithDatabaseInfo(TOKEN, jwt).block();
+    }
+}
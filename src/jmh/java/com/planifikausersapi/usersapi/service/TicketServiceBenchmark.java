@@ -0,0 +1,63 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.planifikausersapi.usersapi.benchmark.BenchmarkData;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketStatusRepository;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketSupportRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de TicketService.mapToResponse a través de getAllTickets, con repositorios simulados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TicketServiceBenchmark {
+
+    @Param({"10", "500"})
+    int rows;
+
+    private TicketService ticketService;
+
+    @Setup
+    public void setUp() {
+        TicketSupportRepository ticketSupportRepository = mock(TicketSupportRepository.class);
+        TicketStatusRepository ticketStatusRepository = mock(TicketStatusRepository.class);
+        when(ticketStatusRepository.findAll()).thenReturn(BenchmarkData.ticketStatuses());
+        when(ticketSupportRepository.findAll()).thenReturn(BenchmarkData.tickets(rows));
+
+        ticketService = new TicketService(ticketSupportRepository, ticketStatusRepository,
+                new TicketStatusCache(ticketStatusRepository), new TicketStatsCache(Duration.ofSeconds(30)),
+                new TicketEventHub(16, 16, new SimpleMeterRegistry(),
+                        new StaticListableBeanFactory().getBeanProvider(InvalidationBus.class)));
+        ticketService.getAllTickets(); // carga el diccionario de estados fuera de la medición
+    }
+
+    @Benchmark
+    public List<TicketResponse> getAllTickets() {
+        return ticketService.getAllTickets();
+    }
+}
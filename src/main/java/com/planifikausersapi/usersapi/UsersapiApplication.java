@@ -2,12 +2,18 @@ package com.planifikausersapi.usersapi;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class UsersapiApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(UsersapiApplication.class, args);
+		SpringApplication application = new SpringApplication(UsersapiApplication.class);
+		// Pasos de arranque (beans, EntityManagerFactory, etc.) para /actuator/startup
+		application.setApplicationStartup(new BufferingApplicationStartup(4096));
+		application.run(args);
 	}
 
 }
@@ -0,0 +1,17 @@
+package com.planifikausersapi.usersapi.cache;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Segundo nivel de caché compartido entre réplicas (por ejemplo Redis). El primer nivel
+ * siempre es local a la JVM; este nivel es opcional y se consulta solo en un fallo local.
+ */
+public interface SharedCacheTier<K, V> {
+
+    Optional<V> get(K key);
+
+    void put(K key, V value, Duration ttl);
+
+    void evict(K key);
+}
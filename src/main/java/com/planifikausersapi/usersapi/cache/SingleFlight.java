@@ -0,0 +1,128 @@
+package com.planifikausersapi.usersapi.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa las llamadas concurrentes con la misma clave en una sola carga: la primera dispara el
+ * Mono y las que llegan mientras está en curso se suscriben al mismo resultado. El resultado se
+ * guarda además el ttl que indique quien llama (cero = sin caché). Los errores no se guardan.
+ *
+ * Métrica singleflight.calls{name, result}: leader (hizo la carga), coalesced (esperó la de
+ * otro) y cached (resuelta con un resultado guardado).
+ */
+public class SingleFlight<K, V> {
+
+    private record CachedValue<V>(V value, long expiresAtNanos) {
+    }
+
+    private final int maxResults;
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+    private final Map<K, CachedValue<V>> results;
+
+    // Cada invalidación incrementa la versión; una carga que empezó antes no se guarda
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter leaders;
+    private final Counter coalesced;
+    private final Counter cached;
+
+    public SingleFlight(String name, int maxResults, MeterRegistry meterRegistry) {
+        this.maxResults = maxResults;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > SingleFlight.this.maxResults;
+            }
+        };
+        this.leaders = Counter.builder("singleflight.calls").tag("name", name).tag("result", "leader")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("singleflight.calls").tag("name", name).tag("result", "coalesced")
+                .register(meterRegistry);
+        this.cached = Counter.builder("singleflight.calls").tag("name", name).tag("result", "cached")
+                .register(meterRegistry);
+    }
+
+    public Mono<V> execute(K key, Duration ttl, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            V hit = getCached(key);
+            if (hit != null) {
+                cached.increment();
+                return Mono.just(hit);
+            }
+
+            boolean[] leader = new boolean[1];
+            Mono<V> flight = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                return newFlight(k, ttl, loader);
+            });
+            (leader[0] ? leaders : coalesced).increment();
+            return flight;
+        });
+    }
+
+    public void invalidate(K key) {
+        version.incrementAndGet();
+        inFlight.remove(key);
+        synchronized (results) {
+            results.remove(key);
+        }
+    }
+
+    /**
+     * Como {@link #invalidate} pero para todas las claves que cumplan la condición.
+     */
+    public void invalidateIf(Predicate<K> condition) {
+        version.incrementAndGet();
+        inFlight.keySet().removeIf(condition);
+        synchronized (results) {
+            results.keySet().removeIf(condition);
+        }
+    }
+
+    private Mono<V> newFlight(K key, Duration ttl, Supplier<Mono<V>> loader) {
+        long versionAtLoad = version.get();
+        @SuppressWarnings("unchecked")
+        Mono<V>[] self = new Mono[1];
+        // cache(): quien se suscribe justo al terminar recibe el mismo resultado, no otra carga
+        self[0] = Mono.defer(loader)
+                .doOnNext(value -> putCached(key, value, ttl, versionAtLoad))
+                .doFinally(signal -> inFlight.remove(key, self[0]))
+                .cache();
+        return self[0];
+    }
+
+    private V getCached(K key) {
+        synchronized (results) {
+            CachedValue<V> entry = results.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+                results.remove(key);
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    private void putCached(K key, V value, Duration ttl, long versionAtLoad) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            return;
+        }
+        synchronized (results) {
+            if (version.get() == versionAtLoad) {
+                results.put(key, new CachedValue<>(value, System.nanoTime() + ttl.toNanos()));
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.planifikausersapi.usersapi.cache;
+
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.invalidation.InvalidationListener;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché de {@link UserPlanifika} por supabaseUserId. Primer nivel local (LRU acotado con TTL)
+ * y segundo nivel opcional compartido entre réplicas. Las entidades se copian al entrar y al
+ * salir, así quien las modifica antes de guardar no ensucia la caché. Con {@link InvalidationBus}
+ * el primer nivel de las otras réplicas se invalida en cuanto se confirma una escritura.
+ */
+@Component
+public class UserPlanifikaCache {
+
+    private static final String CACHE_NAME = "userplanifika";
+
+    private record CachedUser(UserPlanifika value, long expiresAtNanos) {
+    }
+
+    private final int maxSize;
+    private final Duration ttl;
+    private final SharedCacheTier<UUID, UserPlanifika> sharedTier;
+    private final InvalidationBus invalidationBus;
+    private final Map<UUID, CachedUser> local;
+
+    // Cada invalidación incrementa la versión; una carga que empezó antes no se guarda
+    private final AtomicLong version = new AtomicLong();
+    // Serializa las escrituras al nivel compartido con su evict, sin frenar las lecturas locales
+    private final Object sharedWriteLock = new Object();
+
+    private final Counter localHits;
+    private final Counter sharedHits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserPlanifikaCache(@Value("${cache.userplanifika.max-size:10000}") int maxSize,
+            @Value("${cache.userplanifika.ttl:PT5M}") Duration ttl,
+            ObjectProvider<SharedCacheTier<UUID, UserPlanifika>> sharedTier,
+            ObjectProvider<InvalidationBus> invalidationBus,
+            MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.sharedTier = sharedTier.getIfAvailable();
+        this.invalidationBus = invalidationBus.getIfAvailable();
+        this.local = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedUser> eldest) {
+                if (size() > UserPlanifikaCache.this.maxSize) {
+                    UserPlanifikaCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.localHits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .tag("tier", "local").register(meterRegistry);
+        this.sharedHits = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "hit")
+                .tag("tier", "shared").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", CACHE_NAME).tag("result", "miss")
+                .tag("tier", "none").register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", CACHE_NAME).register(meterRegistry);
+        Gauge.builder("cache.size", this, UserPlanifikaCache::localSize).tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+
+        if (this.invalidationBus != null) {
+            // Otra réplica ya invalidó el nivel compartido; acá solo se descarta la copia local
+            this.invalidationBus.subscribe(InvalidationBus.USERS_CHANNEL, new InvalidationListener() {
+                @Override
+                public void onMessage(String payload) {
+                    evictLocal(UUID.fromString(payload));
+                }
+
+                @Override
+                public void onResync() {
+                    clearLocal();
+                }
+            });
+        }
+    }
+
+    /**
+     * Devuelve el usuario desde la caché o lo carga con loader. Los ausentes no se cachean:
+     * un usuario nuevo debe verse en cuanto se inserta.
+     */
+    public Optional<UserPlanifika> get(UUID supabaseUserId, Supplier<Optional<UserPlanifika>> loader) {
+        UserPlanifika cached = getLocal(supabaseUserId);
+        if (cached != null) {
+            localHits.increment();
+            return Optional.of(copyOf(cached));
+        }
+
+        long versionAtLoad = version.get();
+        if (sharedTier != null) {
+            Optional<UserPlanifika> shared = sharedTier.get(supabaseUserId);
+            if (shared.isPresent()) {
+                sharedHits.increment();
+                putLocal(supabaseUserId, shared.get(), versionAtLoad);
+                return Optional.of(copyOf(shared.get()));
+            }
+        }
+
+        misses.increment();
+        Optional<UserPlanifika> loaded = loader.get();
+        loaded.ifPresent(user -> {
+            if (putLocal(supabaseUserId, user, versionAtLoad)) {
+                putShared(supabaseUserId, user, versionAtLoad);
+            }
+        });
+        return loaded.map(UserPlanifikaCache::copyOf);
+    }
+
+    /**
+     * Solo el primer nivel, sin loader: no bloquea, así que se puede llamar desde un hilo de
+     * WebClient. Un fallo aquí no cuenta como miss; lo cuenta el get() que venga después.
+     */
+    public Optional<UserPlanifika> getIfPresent(UUID supabaseUserId) {
+        UserPlanifika cached = getLocal(supabaseUserId);
+        if (cached == null) {
+            return Optional.empty();
+        }
+        localHits.increment();
+        return Optional.of(copyOf(cached));
+    }
+
+    public void evict(UUID supabaseUserId) {
+        if (supabaseUserId == null) {
+            return;
+        }
+        version.incrementAndGet();
+        synchronized (local) {
+            local.remove(supabaseUserId);
+        }
+        if (sharedTier != null) {
+            synchronized (sharedWriteLock) {
+                sharedTier.evict(supabaseUserId);
+            }
+        }
+    }
+
+    /**
+     * Invalida ahora y otra vez al confirmar la transacción actual, para descartar lo que otra
+     * petición haya cargado mientras la escritura aún no era visible. Al confirmar también avisa
+     * a las demás réplicas, si hay bus de invalidación. Fuera de una transacción todo ocurre ya.
+     */
+    public void evictAfterCommit(UUID supabaseUserId) {
+        if (supabaseUserId == null) {
+            return;
+        }
+        evict(supabaseUserId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publishEviction(supabaseUserId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(supabaseUserId);
+                publishEviction(supabaseUserId);
+            }
+        });
+    }
+
+    private void publishEviction(UUID supabaseUserId) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(InvalidationBus.USERS_CHANNEL, supabaseUserId.toString());
+        }
+    }
+
+    private void evictLocal(UUID supabaseUserId) {
+        version.incrementAndGet();
+        synchronized (local) {
+            local.remove(supabaseUserId);
+        }
+    }
+
+    private void clearLocal() {
+        version.incrementAndGet();
+        synchronized (local) {
+            local.clear();
+        }
+    }
+
+    private UserPlanifika getLocal(UUID supabaseUserId) {
+        synchronized (local) {
+            CachedUser entry = local.get(supabaseUserId);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+                local.remove(supabaseUserId);
+                evictions.increment();
+                return null;
+            }
+            return entry.value();
+        }
+    }
+
+    private boolean putLocal(UUID supabaseUserId, UserPlanifika user, long versionAtLoad) {
+        synchronized (local) {
+            if (version.get() != versionAtLoad) {
+                return false;
+            }
+            local.put(supabaseUserId, new CachedUser(copyOf(user), System.nanoTime() + ttl.toNanos()));
+            return true;
+        }
+    }
+
+    /**
+     * Un evict que llega entre putLocal y esta escritura ya cambió la versión y no se guarda;
+     * uno que llega durante la escritura espera el lock y borra después.
+     */
+    private void putShared(UUID supabaseUserId, UserPlanifika user, long versionAtLoad) {
+        if (sharedTier == null) {
+            return;
+        }
+        synchronized (sharedWriteLock) {
+            if (version.get() == versionAtLoad) {
+                sharedTier.put(supabaseUserId, copyOf(user), ttl);
+            }
+        }
+    }
+
+    private double localSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+
+    private static UserPlanifika copyOf(UserPlanifika source) {
+        UserPlanifika copy = new UserPlanifika();
+        copy.setIdUser(source.getIdUser());
+        copy.setName(source.getName());
+        copy.setPhotoUrl(source.getPhotoUrl());
+        copy.setIdUserStatus(source.getIdUserStatus());
+        copy.setIdUserType(source.getIdUserType());
+        copy.setIdOrganization(source.getIdOrganization());
+        copy.setSupabaseUserId(source.getSupabaseUserId());
+        return copy;
+    }
+}
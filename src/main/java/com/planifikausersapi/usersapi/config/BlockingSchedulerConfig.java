@@ -0,0 +1,54 @@
+package com.planifikausersapi.usersapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class BlockingSchedulerConfig {
+
+    /**
+     * Scheduler acotado para las llamadas JPA que se hacen desde pipelines Mono, así los hilos
+     * Netty de WebClient nunca se bloquean esperando a Hikari. Se exporta como
+     * executor.* con name=jpa.blocking: executor.queued (cola), executor.active (tareas en curso)
+     * y executor.idle (tiempo de espera en cola).
+     *
+     * Con spring.threads.virtual.enabled=true cada tarea corre en un hilo virtual: el límite de
+     * concurrencia contra cada base lo pone AdmissionControlDataSource, no este scheduler.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jpaScheduler(
+            @Value("${jpa.scheduler.threads:8}") int threads,
+            @Value("${jpa.scheduler.queue-capacity:256}") int queueCapacity,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            MeterRegistry meterRegistry) {
+
+        if (virtualThreads) {
+            ExecutorService virtual = Executors.newThreadPerTaskExecutor(
+                    Thread.ofVirtual().name("jpa-virtual-", 0).factory());
+            return Schedulers.fromExecutorService(
+                    ExecutorServiceMetrics.monitor(meterRegistry, virtual, "jpa.blocking"), "jpa-blocking");
+        }
+
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("jpa-blocking-"));
+        executor.allowCoreThreadTimeOut(true);
+
+        ExecutorService monitored = ExecutorServiceMetrics.monitor(meterRegistry, executor, "jpa.blocking");
+        return Schedulers.fromExecutorService(monitored, "jpa-blocking");
+    }
+}
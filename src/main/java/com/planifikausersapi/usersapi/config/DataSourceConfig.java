@@ -1,22 +1,33 @@
 package com.planifikausersapi.usersapi.config;
 
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.resilience.AdmissionControlDataSource;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,10 +36,13 @@ import java.util.Map;
 @EnableJpaRepositories(
     basePackages = "com.planifikausersapi.usersapi.repository.planifika",
     entityManagerFactoryRef = "planifikaEntityManagerFactory",
-    transactionManagerRef = "planifikaTransactionManager"
+    transactionManagerRef = "planifikaTransactionManager",
+    bootstrapMode = BootstrapMode.DEFERRED
 )
 public class DataSourceConfig {
 
+    private static final int POOL_SIZE = 3;
+
     @Bean
     @Primary
     @ConfigurationProperties("spring.datasource")
@@ -38,7 +52,9 @@ public class DataSourceConfig {
 
     @Bean
     @Primary
-    public DataSource planifikaDataSource() {
+    public DataSource planifikaDataSource(MeterRegistry meterRegistry,
+            @Value("${datasource.admission.max-waiting:50}") int maxWaiting,
+            @Value("${datasource.admission.acquire-timeout:PT5S}") Duration acquireTimeout) {
         DataSourceProperties properties = planifikaDataSourceProperties();
         
         HikariConfig config = new HikariConfig();
@@ -54,27 +70,48 @@ public class DataSourceConfig {
         config.setPassword(properties.getPassword());
         
         // Configuración para datasource principal
-        config.setMaximumPoolSize(3);
+        config.setMaximumPoolSize(POOL_SIZE);
         config.setMinimumIdle(1);
         config.setIdleTimeout(60000);
         config.setMaxLifetime(300000);
         config.setConnectionTimeout(20000);
         config.setLeakDetectionThreshold(60000);
+        // No conecta al arrancar: el arranque (y el entrenamiento CDS del Dockerfile) no depende de la base
+        config.setInitializationFailTimeout(-1);
         config.setPoolName("PlanifikaPool");
+        // hikaricp.connections.acquire (espera por conexión) y demás métricas con tag pool
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
     // Desactivar prepared statements en PgBouncer y evitar errores 42P05 / 25P02
     config.addDataSourceProperty("prepareThreshold", "0");
     config.addDataSourceProperty("preferQueryMode", "simple");
     // autosave=always evita abortar toda la transacción ante errores de statements intermedios
     config.addDataSourceProperty("autosave", "always");
+    // Convierte los batch de INSERT (importación masiva) en INSERT multi-fila
+    config.addDataSourceProperty("reWriteBatchedInserts", "true");
         
-        return new HikariDataSource(config);
+        // Mismos permisos que conexiones: la espera ocurre en el semáforo, acotada y medida
+        return new AdmissionControlDataSource(new HikariDataSource(config), "planifika", POOL_SIZE, maxWaiting,
+                acquireTimeout, meterRegistry);
+    }
+
+    /**
+     * Entidades de esta base (solo su paquete). Como bean, el build AOT/nativo lo resuelve en
+     * tiempo de compilación y registra la reflexión de cada entidad; en la JVM se escanea al
+     * arrancar como antes.
+     */
+    @Bean
+    @Primary
+    public PersistenceManagedTypes planifikaManagedTypes(ResourceLoader resourceLoader) {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan(UserPlanifika.class.getPackageName());
     }
 
     @Bean
     @Primary
     public LocalContainerEntityManagerFactoryBean planifikaEntityManagerFactory(
             EntityManagerFactoryBuilder builder,
-            @Qualifier("planifikaDataSource") DataSource dataSource) {
+            @Qualifier("planifikaDataSource") DataSource dataSource,
+            @Qualifier("planifikaManagedTypes") PersistenceManagedTypes managedTypes,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor bootstrapExecutor) {
         
         Map<String, Object> properties = new HashMap<>();
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
@@ -83,12 +120,16 @@ public class DataSourceConfig {
         properties.put("hibernate.temp.use_jdbc_metadata_defaults", "false");
         properties.put("hibernate.jdbc.lob.non_contextual_creation", "true");
         
-        return builder
+        // Solo las entidades de esta base; Hibernate arma la metadata en segundo plano mientras
+        // se inicializa el resto del contexto (repositorios en modo DEFERRED)
+        LocalContainerEntityManagerFactoryBean factory = builder
             .dataSource(dataSource)
-            .packages("com.planifikausersapi.usersapi.model")
+            .managedTypes(managedTypes)
             .persistenceUnit("planifika")
             .properties(properties)
             .build();
+        factory.setBootstrapExecutor(bootstrapExecutor);
+        return factory;
     }
 
     @Bean
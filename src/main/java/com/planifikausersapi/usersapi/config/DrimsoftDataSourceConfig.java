@@ -1,22 +1,32 @@
 package com.planifikausersapi.usersapi.config;
 
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+import com.planifikausersapi.usersapi.resilience.AdmissionControlDataSource;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,10 +35,14 @@ import java.util.Map;
 @EnableJpaRepositories(
     basePackages = "com.planifikausersapi.usersapi.repository.drimsoft",
     entityManagerFactoryRef = "drimsoftEntityManagerFactory",
-    transactionManagerRef = "drimsoftTransactionManager"
+    transactionManagerRef = "drimsoftTransactionManager",
+    // Repositorios perezosos: la EntityManagerFactory (@Lazy) se arma recién en el primer uso
+    bootstrapMode = BootstrapMode.LAZY
 )
 public class DrimsoftDataSourceConfig {
 
+    private static final int POOL_SIZE = 2;
+
     @Bean
     @ConfigurationProperties("drimsoft.datasource")
     public DataSourceProperties drimsoftDataSourceProperties() {
@@ -37,7 +51,9 @@ public class DrimsoftDataSourceConfig {
 
     @Bean
     @Lazy
-    public DataSource drimsoftDataSource() {
+    public DataSource drimsoftDataSource(MeterRegistry meterRegistry,
+            @Value("${datasource.admission.max-waiting:50}") int maxWaiting,
+            @Value("${datasource.admission.acquire-timeout:PT5S}") Duration acquireTimeout) {
         DataSourceProperties properties = drimsoftDataSourceProperties();
         
         HikariConfig config = new HikariConfig();
@@ -53,7 +69,7 @@ public class DrimsoftDataSourceConfig {
         config.setPassword(properties.getPassword());
         
         // Configuración mínima para Supabase
-        config.setMaximumPoolSize(2);
+        config.setMaximumPoolSize(POOL_SIZE);
         config.setMinimumIdle(0);
         config.setIdleTimeout(60000);
         config.setMaxLifetime(300000);
@@ -61,19 +77,31 @@ public class DrimsoftDataSourceConfig {
         config.setInitializationFailTimeout(-1);
         config.setLeakDetectionThreshold(60000);
         config.setPoolName("DrimsoftPool");
+        // hikaricp.connections.acquire (espera por conexión) y demás métricas con tag pool
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
     // Ajustes PgJDBC para compatibilidad con PgBouncer (Supabase Pooler)
     config.addDataSourceProperty("prepareThreshold", "0");
     config.addDataSourceProperty("preferQueryMode", "simple");
     config.addDataSourceProperty("autosave", "always");
         
-        return new HikariDataSource(config);
+        // Mismos permisos que conexiones: la espera ocurre en el semáforo, acotada y medida
+        return new AdmissionControlDataSource(new HikariDataSource(config), "drimsoft", POOL_SIZE, maxWaiting,
+                acquireTimeout, meterRegistry);
+    }
+
+    // Solo las entidades de esta base; en AOT/nativo se resuelve al compilar
+    @Bean
+    @Lazy
+    public PersistenceManagedTypes drimsoftManagedTypes(ResourceLoader resourceLoader) {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan(TicketSupport.class.getPackageName());
     }
 
     @Bean
     @Lazy
     public LocalContainerEntityManagerFactoryBean drimsoftEntityManagerFactory(
             EntityManagerFactoryBuilder builder,
-            @Qualifier("drimsoftDataSource") DataSource dataSource) {
+            @Qualifier("drimsoftDataSource") DataSource dataSource,
+            @Qualifier("drimsoftManagedTypes") PersistenceManagedTypes managedTypes) {
         
         Map<String, Object> properties = new HashMap<>();
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
@@ -81,10 +109,13 @@ public class DrimsoftDataSourceConfig {
             "org.hibernate.boot.model.naming.PhysicalNamingStrategyStandardImpl");
         properties.put("hibernate.temp.use_jdbc_metadata_defaults", "false");
         properties.put("hibernate.jdbc.lob.non_contextual_creation", "true");
+        // Agrupa los UPDATE de PATCH /tickets/batch en lotes JDBC
+        properties.put("hibernate.jdbc.batch_size", "50");
+        properties.put("hibernate.order_updates", "true");
         
         return builder
             .dataSource(dataSource)
-            .packages("com.planifikausersapi.usersapi.model")
+            .managedTypes(managedTypes)
             .persistenceUnit("drimsoft")
             .properties(properties)
             .build();
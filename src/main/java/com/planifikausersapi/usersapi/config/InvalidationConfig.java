@@ -0,0 +1,42 @@
+package com.planifikausersapi.usersapi.config;
+
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.invalidation.PostgresInvalidationTransport;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+@Configuration
+public class InvalidationConfig {
+
+    /**
+     * Una conexión LISTEN por base, con las credenciales de su datasource. La URL por defecto es
+     * la configurada para el datasource tal cual (directa, 5432), sin el cambio al pooler 6543.
+     * Sin este bean (invalidation.transport=none) cada réplica solo ve sus propias escrituras y
+     * el resto lo cubre el TTL.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "invalidation.transport", havingValue = "postgres")
+    public InvalidationBus postgresInvalidationBus(
+            @Qualifier("planifikaDataSourceProperties") DataSourceProperties planifika,
+            @Qualifier("drimsoftDataSourceProperties") DataSourceProperties drimsoft,
+            @Value("${invalidation.planifika.url:}") String planifikaUrl,
+            @Value("${invalidation.drimsoft.url:}") String drimsoftUrl,
+            @Value("${invalidation.poll-interval:PT0.25S}") Duration pollInterval,
+            MeterRegistry meterRegistry) {
+        return new InvalidationBus(Map.of(
+                InvalidationBus.USERS_CHANNEL, new PostgresInvalidationTransport("planifika",
+                        planifikaUrl.isBlank() ? planifika.getUrl() : planifikaUrl,
+                        planifika.getUsername(), planifika.getPassword(), pollInterval),
+                InvalidationBus.TICKETS_CHANNEL, new PostgresInvalidationTransport("drimsoft",
+                        drimsoftUrl.isBlank() ? drimsoft.getUrl() : drimsoftUrl,
+                        drimsoft.getUsername(), drimsoft.getPassword(), pollInterval)), meterRegistry);
+    }
+}
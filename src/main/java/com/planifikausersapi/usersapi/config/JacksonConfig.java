@@ -0,0 +1,28 @@
+package com.planifikausersapi.usersapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planifikausersapi.usersapi.dto.SignUpResponse;
+import com.planifikausersapi.usersapi.dto.TicketPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.dto.UserProfileResponse;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class JacksonConfig {
+
+    private static final List<Class<?>> RESPONSE_TYPES = List.of(
+            TicketResponse.class,
+            TicketPageResponse.class,
+            UserProfileResponse.class,
+            SignUpResponse.class);
+
+    // Resuelve y deja en caché los serializadores de los DTO al arrancar, no en la primera petición
+    @Bean
+    public ApplicationRunner jacksonSerializerWarmup(ObjectMapper objectMapper) {
+        return args -> RESPONSE_TYPES.forEach(objectMapper::canSerialize);
+    }
+}
@@ -0,0 +1,33 @@
+package com.planifikausersapi.usersapi.config;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+
+@Configuration
+public class MetricsConfig {
+
+    private static final String REPOSITORY_PACKAGE = "com.planifikausersapi.usersapi.repository.";
+
+    /**
+     * Agrega a spring.data.repository.invocations el tag datasource (planifika, drimsoft o
+     * siu), tomado del paquete del repositorio, para separar la latencia de cada base.
+     */
+    @Bean
+    public RepositoryTagsProvider repositoryTagsProvider() {
+        DefaultRepositoryTagsProvider defaults = new DefaultRepositoryTagsProvider();
+        return invocation -> Tags.of(defaults.repositoryTags(invocation)).and(datasourceTag(invocation));
+    }
+
+    private static Tag datasourceTag(RepositoryMethodInvocation invocation) {
+        String packageName = invocation.getRepositoryInterface().getPackageName();
+        String datasource = packageName.startsWith(REPOSITORY_PACKAGE)
+                ? packageName.substring(REPOSITORY_PACKAGE.length())
+                : "unknown";
+        return Tag.of("datasource", datasource);
+    }
+}
@@ -0,0 +1,59 @@
+package com.planifikausersapi.usersapi.config;
+
+import com.planifikausersapi.usersapi.dto.SignUpResponse;
+import com.planifikausersapi.usersapi.dto.TicketBatchItemResult;
+import com.planifikausersapi.usersapi.dto.TicketBatchUpdateRequest;
+import com.planifikausersapi.usersapi.dto.TicketEvent;
+import com.planifikausersapi.usersapi.dto.TicketPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.dto.TicketSeekPageResponse;
+import com.planifikausersapi.usersapi.dto.UserImportProgress;
+import com.planifikausersapi.usersapi.dto.UserImportResult;
+import com.planifikausersapi.usersapi.dto.UserImportRow;
+import com.planifikausersapi.usersapi.dto.UserProfileResponse;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import com.planifikausersapi.usersapi.utils.CursorPage;
+import com.planifikausersapi.usersapi.utils.ErrorResponse;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.sql.Connection;
+
+/**
+ * Metadata de alcanzabilidad para la imagen nativa (perfil native). Las entidades ya las
+ * registra el procesamiento AOT de los PersistenceManagedTypes; aquí va lo que Spring no puede
+ * deducir solo: los tipos que se serializan detrás de ResponseEntity<Object> o de un Map, los
+ * que se leen con ObjectMapper a mano y el proxy de Connection de AdmissionControlDataSource.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.Hints.class)
+@RegisterReflectionForBinding({
+        TicketResponse.class,
+        TicketPageResponse.class,
+        TicketSeekPageResponse.class,
+        TicketEvent.class,
+        TicketBatchUpdateRequest.class,
+        TicketBatchItemResult.class,
+        UserProfileResponse.class,
+        SignUpResponse.class,
+        UserImportRow.class,
+        UserImportResult.class,
+        UserImportProgress.class,
+        CursorPage.class,
+        ErrorResponse.class,
+        UserPlanifika.class,
+        UserSIU.class })
+public class NativeHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.proxies().registerJdkProxy(Connection.class);
+        }
+    }
+}
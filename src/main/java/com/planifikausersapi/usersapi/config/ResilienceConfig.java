@@ -0,0 +1,50 @@
+package com.planifikausersapi.usersapi.config;
+
+import com.planifikausersapi.usersapi.resilience.UpstreamGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Un circuit breaker y bulkhead por proyecto de Supabase Auth, así una caída del SIU no
+ * bloquea los logins de Planifika ni al revés.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Value("${supabase.resilience.window-size:20}")
+    private int windowSize;
+
+    @Value("${supabase.resilience.minimum-calls:10}")
+    private int minimumCalls;
+
+    @Value("${supabase.resilience.failure-rate-threshold:0.5}")
+    private double failureRateThreshold;
+
+    @Value("${supabase.resilience.open-duration:PT30S}")
+    private Duration openDuration;
+
+    @Value("${supabase.resilience.half-open-probes:3}")
+    private int halfOpenProbes;
+
+    @Value("${supabase.resilience.max-concurrent-calls:25}")
+    private int maxConcurrentCalls;
+
+    @Bean
+    public UpstreamGuard planifikaAuthGuard(MeterRegistry meterRegistry) {
+        return guard("supabase-auth", meterRegistry);
+    }
+
+    @Bean
+    public UpstreamGuard siuAuthGuard(MeterRegistry meterRegistry) {
+        return guard("supabase-auth-siu", meterRegistry);
+    }
+
+    private UpstreamGuard guard(String name, MeterRegistry meterRegistry) {
+        return new UpstreamGuard(name, windowSize, minimumCalls, failureRateThreshold, openDuration,
+                halfOpenProbes, maxConcurrentCalls, meterRegistry);
+    }
+}
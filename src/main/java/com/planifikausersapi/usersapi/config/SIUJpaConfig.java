@@ -1,22 +1,32 @@
 package com.planifikausersapi.usersapi.config;
 
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import com.planifikausersapi.usersapi.resilience.AdmissionControlDataSource;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManagerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.data.repository.config.BootstrapMode;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypes;
+import org.springframework.orm.jpa.persistenceunit.PersistenceManagedTypesScanner;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,10 +35,14 @@ import java.util.Map;
 @EnableJpaRepositories(
     basePackages = "com.planifikausersapi.usersapi.repository.siu",
     entityManagerFactoryRef = "siuEntityManagerFactory",
-    transactionManagerRef = "siuTransactionManager"
+    transactionManagerRef = "siuTransactionManager",
+    // Repositorios perezosos: la EntityManagerFactory (@Lazy) se arma recién en el primer uso
+    bootstrapMode = BootstrapMode.LAZY
 )
 public class SIUJpaConfig {
 
+    private static final int POOL_SIZE = 2;
+
     @Bean
     @ConfigurationProperties("spring.datasource.siu")
     public DataSourceProperties siuDataSourceProperties() {
@@ -37,7 +51,9 @@ public class SIUJpaConfig {
 
     @Bean
     @Lazy
-    public DataSource siuDataSource() {
+    public DataSource siuDataSource(MeterRegistry meterRegistry,
+            @Value("${datasource.admission.max-waiting:50}") int maxWaiting,
+            @Value("${datasource.admission.acquire-timeout:PT5S}") Duration acquireTimeout) {
         DataSourceProperties properties = siuDataSourceProperties();
         
         HikariConfig config = new HikariConfig();
@@ -53,7 +69,7 @@ public class SIUJpaConfig {
         config.setPassword(properties.getPassword());
         
         // Configuración mínima
-        config.setMaximumPoolSize(2);
+        config.setMaximumPoolSize(POOL_SIZE);
         config.setMinimumIdle(0);
         config.setIdleTimeout(60000);
         config.setMaxLifetime(300000);
@@ -61,19 +77,31 @@ public class SIUJpaConfig {
         config.setInitializationFailTimeout(-1);
         config.setLeakDetectionThreshold(60000);
         config.setPoolName("SiuPool");
+        // hikaricp.connections.acquire (espera por conexión) y demás métricas con tag pool
+        config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
     // Ajustes PgJDBC para compatibilidad con PgBouncer (Supabase Pooler)
     config.addDataSourceProperty("prepareThreshold", "0");
     config.addDataSourceProperty("preferQueryMode", "simple");
     config.addDataSourceProperty("autosave", "always");
         
-        return new HikariDataSource(config);
+        // Mismos permisos que conexiones: la espera ocurre en el semáforo, acotada y medida
+        return new AdmissionControlDataSource(new HikariDataSource(config), "siu", POOL_SIZE, maxWaiting,
+                acquireTimeout, meterRegistry);
+    }
+
+    // Solo las entidades de esta base; en AOT/nativo se resuelve al compilar
+    @Bean
+    @Lazy
+    public PersistenceManagedTypes siuManagedTypes(ResourceLoader resourceLoader) {
+        return new PersistenceManagedTypesScanner(resourceLoader).scan(UserSIU.class.getPackageName());
     }
 
     @Bean
     @Lazy
     public LocalContainerEntityManagerFactoryBean siuEntityManagerFactory(
             EntityManagerFactoryBuilder builder,
-            @Qualifier("siuDataSource") DataSource dataSource) {
+            @Qualifier("siuDataSource") DataSource dataSource,
+            @Qualifier("siuManagedTypes") PersistenceManagedTypes managedTypes) {
         
         Map<String, Object> properties = new HashMap<>();
         properties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
@@ -84,7 +112,7 @@ public class SIUJpaConfig {
         
         return builder
             .dataSource(dataSource)
-            .packages("com.planifikausersapi.usersapi.model")
+            .managedTypes(managedTypes)
             .persistenceUnit("siu")
             .properties(properties)
             .build();
@@ -0,0 +1,109 @@
+package com.planifikausersapi.usersapi.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * WebClient para las APIs de Supabase (Planifika y SIU). Cada URL base tiene su propio pool de
+ * conexiones acotado, con timeouts de conexión y de respuesta, así un Supabase lento falla
+ * rápido en vez de retener la petición. Los pools se exportan a Micrometer como
+ * reactor.netty.connection.provider.* con name=supabase / supabase-siu.
+ */
+@Configuration
+public class SupabaseWebClientConfig {
+
+    @Value("${supabase.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${supabase.http.pending-acquire-max-count:100}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${supabase.http.pending-acquire-timeout:PT5S}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${supabase.http.max-idle-time:PT30S}")
+    private Duration maxIdleTime;
+
+    @Value("${supabase.http.max-life-time:PT5M}")
+    private Duration maxLifeTime;
+
+    @Value("${supabase.http.evict-interval:PT30S}")
+    private Duration evictInterval;
+
+    @Value("${supabase.http.connect-timeout:PT3S}")
+    private Duration connectTimeout;
+
+    @Value("${supabase.http.response-timeout:PT10S}")
+    private Duration responseTimeout;
+
+    // HTTP/2 requiere TLS con ALPN; si el servidor no lo negocia se usa HTTP/1.1
+    @Value("${supabase.http.http2:false}")
+    private boolean http2;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseConnectionProvider() {
+        return connectionProvider("supabase");
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider siuConnectionProvider() {
+        return connectionProvider("supabase-siu");
+    }
+
+    @Bean
+    public WebClient supabaseWebClient(WebClient.Builder webClientBuilder,
+            @Qualifier("supabaseConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${supabase.url}") String supabaseUrl,
+            @Value("${supabase.anon.key}") String anonKey) {
+        return webClient(webClientBuilder, connectionProvider, supabaseUrl, anonKey);
+    }
+
+    @Bean
+    public WebClient siuWebClient(WebClient.Builder webClientBuilder,
+            @Qualifier("siuConnectionProvider") ConnectionProvider connectionProvider,
+            @Value("${supabase.url.siu}") String supabaseUrl,
+            @Value("${supabase.anon.key.siu}") String anonKey) {
+        return webClient(webClientBuilder, connectionProvider, supabaseUrl, anonKey);
+    }
+
+    private ConnectionProvider connectionProvider(String name) {
+        return ConnectionProvider.builder(name)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    private WebClient webClient(WebClient.Builder webClientBuilder, ConnectionProvider connectionProvider,
+            String baseUrl, String anonKey) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout);
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .baseUrl(baseUrl)
+                .defaultHeader("apiKey", anonKey)
+                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + anonKey)
+                .build();
+    }
+}
@@ -1,10 +1,16 @@
 package com.planifikausersapi.usersapi.controller;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.client.HttpClientErrorException.Unauthorized;
 
+import com.planifikausersapi.usersapi.resilience.SupabaseApiException;
+import com.planifikausersapi.usersapi.resilience.UpstreamUnavailableException;
 import com.planifikausersapi.usersapi.service.AuthService;
 import com.planifikausersapi.usersapi.service.SIUAuthService;
 import com.planifikausersapi.usersapi.utils.ErrorResponse;
@@ -17,6 +23,8 @@ import java.util.Map;
 @RequestMapping("/auth")
 public class AuthController {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthController.class);
+
     private final AuthService authService;
     private final SIUAuthService siuAuthService;
 
@@ -26,7 +34,7 @@ public class AuthController {
     }
 
     @PostMapping("/signup")
-    public Mono<ResponseEntity<Map<String, Object>>> signup(@RequestBody Map<String, Object> body) {
+    public Mono<ResponseEntity<Object>> signup(@RequestBody Map<String, Object> body) {
         String name = (String) body.get("name");
         String email = (String) body.get("email");
         String password = (String) body.get("password");
@@ -34,7 +42,9 @@ public class AuthController {
         Integer userRole = (Integer) body.get("userRole"); // Nuevo campo
 
         return authService.signUp(name, email, password, photoUrl, userRole)
-                .map(result -> ResponseEntity.ok(result))
+                .map(result -> ResponseEntity.<Object>ok(result))
+                .onErrorResume(UpstreamUnavailableException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()))))
                 .onErrorResume(e -> Mono.just(ResponseEntity.badRequest()
                         .body(Map.of("error", e.getMessage()))));
     }
@@ -43,33 +53,41 @@ public class AuthController {
     public Mono<ResponseEntity<Map<String, Object>>> login(@RequestBody Map<String, String> body) {
         String email = body.get("email");
         String password = body.get("password");
-        System.out.println("Login attempt for email: " + email);
+        log.info("Intento de login");
         return authService.signIn(email, password)
+                .doOnError(e -> log.info("Login rechazado: {}", e.getMessage()))
                 .map(resp -> ResponseEntity.ok(resp))
+                .onErrorResume(UpstreamUnavailableException.class, e -> Mono.just(
+                        ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()))))
                 .onErrorResume(e -> Mono.just(ResponseEntity.status(401).body(Map.of("error", e.getMessage()))));
     }
 
     @PostMapping("/external-login")
-    public ResponseEntity<Object> externalLogin(@RequestBody Map<String, String> body) {
+    public Mono<ResponseEntity<Object>> externalLogin(@RequestBody Map<String, String> body) {
         String email = body.get("email");
         String password = body.get("password");
 
-        try {
-            return ResponseEntity.ok(siuAuthService.externalLogin(email, password));
-        } catch (Exception e) {
-            ErrorResponse errorResponse = new ErrorResponse(e.getMessage());
-            if (e instanceof Unauthorized) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
-            }
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
-        }
+        return siuAuthService.externalLogin(email, password)
+                .map(result -> ResponseEntity.<Object>ok(result))
+                .onErrorResume(e -> {
+                    ErrorResponse errorResponse = new ErrorResponse(e.getMessage());
+                    if (e instanceof UpstreamUnavailableException) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse));
+                    }
+                    if (e instanceof Unauthorized
+                            || (e instanceof SupabaseApiException api && api.getStatusCode() == 401)) {
+                        return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse));
+                    }
+                    return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse));
+                });
     }
 
     @GetMapping("/me")
-    public Mono<ResponseEntity<Map<String, Object>>> me(@RequestHeader("Authorization") String authorization) {
+    public Mono<ResponseEntity<Object>> me(@RequestHeader("Authorization") String authorization,
+            @AuthenticationPrincipal Jwt jwt) {
         String token = authorization.replaceFirst("Bearer ", "");
-        return authService.getUserWithDatabaseInfo(token)
-                .map(ResponseEntity::ok)
+        return authService.getUserWithDatabaseInfo(token, jwt)
+                .map(profile -> ResponseEntity.<Object>ok(profile))
                 .onErrorResume(e -> Mono.just(ResponseEntity.status(500)
                         .body(Map.of("error", "Error al obtener información del usuario: " + e.getMessage()))));
     }
@@ -77,6 +95,7 @@ public class AuthController {
     @PatchMapping("/me")
     public Mono<ResponseEntity<Map<String, Object>>> updateMe(
         @RequestHeader("Authorization") String authorization,
+        @AuthenticationPrincipal Jwt jwt,
         @RequestBody Map<String, Object> body
     ) {
         String token = authorization.replaceFirst("Bearer ", "");
@@ -84,7 +103,7 @@ public class AuthController {
         String password = body.get("password") != null ? body.get("password").toString() : null;
         String photourl = body.get("photourl") != null ? body.get("photourl").toString() : null;
 
-        return authService.updateProfile(token, name, password, photourl)
+        return authService.updateProfile(token, jwt, name, password, photourl)
                 .map(ResponseEntity::ok)
                 .onErrorResume(e -> Mono.just(ResponseEntity.badRequest().body(Map.of(
                     "error", e.getMessage()
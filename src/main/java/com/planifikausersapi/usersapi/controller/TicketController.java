@@ -1,10 +1,24 @@
 package com.planifikausersapi.usersapi.controller;
 
+import com.planifikausersapi.usersapi.dto.TicketBatchItemResult;
+import com.planifikausersapi.usersapi.dto.TicketBatchUpdateRequest;
+import com.planifikausersapi.usersapi.dto.TicketEvent;
+import com.planifikausersapi.usersapi.dto.TicketPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.dto.TicketSeekPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketStatsResponse;
+import com.planifikausersapi.usersapi.service.TicketEventHub;
 import com.planifikausersapi.usersapi.service.TicketService;
+import com.planifikausersapi.usersapi.utils.ErrorResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 
@@ -13,65 +27,135 @@ import java.util.Map;
 public class TicketController {
 
     private final TicketService ticketService;
+    private final TicketEventHub ticketEventHub;
+    private final Duration streamHeartbeat;
+    private final Duration streamMaxDuration;
 
-    public TicketController(TicketService ticketService) {
+    public TicketController(TicketService ticketService, TicketEventHub ticketEventHub,
+            @Value("${tickets.stream.heartbeat:PT15S}") Duration streamHeartbeat,
+            @Value("${tickets.stream.max-duration:PT5M}") Duration streamMaxDuration) {
         this.ticketService = ticketService;
+        this.ticketEventHub = ticketEventHub;
+        this.streamHeartbeat = streamHeartbeat;
+        this.streamMaxDuration = streamMaxDuration;
     }
 
     @PostMapping
-    public ResponseEntity<Map<String, Object>> createTicket(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<TicketResponse> createTicket(@RequestBody Map<String, Object> request) {
         Integer idPlanifikaUser = (Integer) request.get("idPlanifikaUser");
         String title = (String) request.get("title");
         String description = (String) request.get("description");
         
-        Map<String, Object> ticket = ticketService.createTicket(idPlanifikaUser, title, description);
+        TicketResponse ticket = ticketService.createTicket(idPlanifikaUser, title, description);
         return ResponseEntity.status(HttpStatus.CREATED).body(ticket);
     }
 
+    /**
+     * mode=offset (por defecto) pagina con page/size y devuelve el total. mode=seek pagina por
+     * cursor: after es el nextCursor de la página anterior y el total solo se calcula con
+     * includeTotal=true.
+     */
     @GetMapping("/paged")
-    public ResponseEntity<Map<String, Object>> getTicketsPaged(
+    public ResponseEntity<Object> getTicketsPaged(
+            @RequestParam(defaultValue = "offset") String mode,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        Map<String, Object> paged = ticketService.getTicketsPaged(page, size);
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        if ("seek".equalsIgnoreCase(mode)) {
+            TicketSeekPageResponse seek = ticketService.getTicketsAfter(after, size, includeTotal);
+            return ResponseEntity.ok(seek);
+        }
+        if (!"offset".equalsIgnoreCase(mode)) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("mode debe ser offset o seek"));
+        }
+        TicketPageResponse paged = ticketService.getTicketsPaged(page, size);
         return ResponseEntity.ok(paged);
     }
 
+    /**
+     * Server-Sent Events con los tickets creados, actualizados y borrados. Al reconectar, el
+     * navegador envía Last-Event-ID y recibe lo que se perdió. Un comentario periódico mantiene
+     * viva la conexión a través de proxies y cada stream se cierra tras max-duration para que el
+     * cliente reconecte antes del timeout asíncrono del servidor.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<TicketEvent>> streamTickets(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Flux<ServerSentEvent<TicketEvent>> events = ticketEventHub.subscribe(lastEventId)
+            .map(event -> ServerSentEvent.builder(event)
+                .id(Long.toString(event.id()))
+                .event(event.type())
+                .build());
+        Flux<ServerSentEvent<TicketEvent>> heartbeats = Flux.interval(streamHeartbeat)
+            .map(tick -> ServerSentEvent.<TicketEvent>builder().comment("keepalive").build());
+        return Flux.merge(events, heartbeats).take(streamMaxDuration);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<Object> searchTickets(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            TicketPageResponse results = ticketService.searchTickets(q, page, size);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<TicketStatsResponse> getTicketStats() {
+        return ResponseEntity.ok(ticketService.getTicketStats());
+    }
+
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllTickets() {
-        List<Map<String, Object>> tickets = ticketService.getAllTickets();
+    public ResponseEntity<List<TicketResponse>> getAllTickets() {
+        List<TicketResponse> tickets = ticketService.getAllTickets();
         return ResponseEntity.ok(tickets);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> getTicketById(@PathVariable Integer id) {
-        Map<String, Object> ticket = ticketService.getTicketById(id);
+    public ResponseEntity<TicketResponse> getTicketById(@PathVariable Integer id) {
+        TicketResponse ticket = ticketService.getTicketById(id);
         return ResponseEntity.ok(ticket);
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Map<String, Object>>> getTicketsByUser(@PathVariable Integer userId) {
-        List<Map<String, Object>> tickets = ticketService.getTicketsByPlanifikaUser(userId);
+    public ResponseEntity<List<TicketResponse>> getTicketsByUser(@PathVariable Integer userId) {
+        List<TicketResponse> tickets = ticketService.getTicketsByPlanifikaUser(userId);
         return ResponseEntity.ok(tickets);
     }
 
     @GetMapping("/status/{statusId}")
-    public ResponseEntity<List<Map<String, Object>>> getTicketsByStatus(@PathVariable Integer statusId) {
-        List<Map<String, Object>> tickets = ticketService.getTicketsByStatus(statusId);
+    public ResponseEntity<List<TicketResponse>> getTicketsByStatus(@PathVariable Integer statusId) {
+        List<TicketResponse> tickets = ticketService.getTicketsByStatus(statusId);
         return ResponseEntity.ok(tickets);
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<Map<String, Object>> updateTicket(
+    public ResponseEntity<TicketResponse> updateTicket(
             @PathVariable Integer id,
             @RequestBody Map<String, Object> request) {
         Integer idTicketStatus = request.get("idTicketStatus") != null ? (Integer) request.get("idTicketStatus") : null;
         String answer = request.get("answer") != null ? (String) request.get("answer") : null;
         Integer idDrimsoftUser = request.get("idDrimsoftUser") != null ? (Integer) request.get("idDrimsoftUser") : null;
         
-        Map<String, Object> ticket = ticketService.updateTicket(id, idTicketStatus, answer, idDrimsoftUser);
+        TicketResponse ticket = ticketService.updateTicket(id, idTicketStatus, answer, idDrimsoftUser);
         return ResponseEntity.ok(ticket);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> updateTickets(@RequestBody List<TicketBatchUpdateRequest> updates) {
+        try {
+            List<TicketBatchItemResult> results = ticketService.updateTickets(updates);
+            return ResponseEntity.ok(results);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ErrorResponse(e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Map<String, Object>> deleteTicket(@PathVariable Integer id) {
         ticketService.deleteTicket(id);
@@ -1,38 +1,150 @@
 package com.planifikausersapi.usersapi.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import com.planifikausersapi.usersapi.model.UserPlanifika;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.planifikausersapi.usersapi.dto.UserImportProgress;
+import com.planifikausersapi.usersapi.dto.UserImportResult;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.service.UserImportService;
 import com.planifikausersapi.usersapi.service.UserService;
+import com.planifikausersapi.usersapi.utils.CsvRecordIterator;
 import com.planifikausersapi.usersapi.utils.ErrorResponse;
 
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
 import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int STREAM_CHUNK_SIZE = 500;
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService,
+            ObjectMapper objectMapper) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
+    public ResponseEntity<Object> getAllUsers(
+            @RequestParam(required = false) Integer after,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) Integer idOrganization,
+            @RequestParam(required = false) Integer idUserStatus,
+            @RequestParam(required = false) Integer idUserType) {
         try {
-            return ResponseEntity.ok(userService.findAll());
+            return ResponseEntity.ok(userService.findPage(after, limit, idOrganization, idUserStatus, idUserType));
         } catch (Exception e) {
             ErrorResponse errorResponse = new ErrorResponse(e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
         }
     }
 
+    // Variante NDJSON: un usuario por línea, escrito a medida que se leen los bloques
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers(
+            @RequestParam(required = false) Integer idOrganization,
+            @RequestParam(required = false) Integer idUserStatus,
+            @RequestParam(required = false) Integer idUserType) {
+        StreamingResponseBody body = out -> userService.forEachChunk(idOrganization, idUserStatus, idUserType,
+                STREAM_CHUNK_SIZE, chunk -> {
+                    try {
+                        for (UserPlanifika user : chunk) {
+                            out.write(objectMapper.writeValueAsBytes(user));
+                            out.write('\n');
+                        }
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Alta masiva. Acepta un arreglo JSON, NDJSON o CSV con encabezado (supabaseUserId, name,
+     * photoUrl, idUserStatus, idUserType, idOrganization) y responde NDJSON: una línea por
+     * fila con su resultado y una línea de avance por lote; la última trae done=true.
+     */
+    @PostMapping(value = "/import",
+            consumes = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE, "text/csv" },
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importUsers(HttpServletRequest request) {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        StreamingResponseBody body = out -> {
+            try (InputStream in = request.getInputStream()) {
+                Iterator<JsonNode> rows = "csv".equals(contentType.getSubtype())
+                        ? csvRows(in, contentType)
+                        : objectMapper.readerFor(JsonNode.class).readValues(in);
+                UserImportProgress summary = userImportService.importUsers(rows, (results, progress) -> {
+                    try {
+                        for (UserImportResult result : results) {
+                            writeLine(out, result);
+                        }
+                        writeLine(out, progress);
+                        out.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                writeLine(out, summary);
+            } catch (RuntimeException e) {
+                // El estado HTTP ya se envió: el error de lectura se informa como última línea
+                writeLine(out, new ErrorResponse(e.getMessage()));
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private Iterator<JsonNode> csvRows(InputStream in, MediaType contentType) {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        CsvRecordIterator records = new CsvRecordIterator(new InputStreamReader(in, charset));
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasNext();
+            }
+
+            @Override
+            public JsonNode next() {
+                return objectMapper.valueToTree(records.next());
+            }
+        };
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Object> getUserById(@PathVariable Integer id) {
         try {
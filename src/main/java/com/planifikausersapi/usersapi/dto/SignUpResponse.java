@@ -0,0 +1,10 @@
+package com.planifikausersapi.usersapi.dto;
+
+import java.util.Map;
+
+/**
+ * Resultado de POST /auth/signup: la respuesta de Supabase Auth tal cual y la fila creada
+ * en userplanifika.
+ */
+public record SignUpResponse(Map<String, Object> auth, Map<String, Object> db) {
+}
@@ -0,0 +1,28 @@
+package com.planifikausersapi.usersapi.dto;
+
+/**
+ * Resultado de una entrada de PATCH /tickets/batch. Las entradas que no se pudieron aplicar
+ * no abortan el lote: se informan con su estado y el motivo.
+ */
+public record TicketBatchItemResult(
+        Integer id,
+        Status status,
+        TicketResponse ticket,
+        String error) {
+
+    public enum Status {
+        UPDATED, NOT_FOUND, INVALID
+    }
+
+    public static TicketBatchItemResult updated(TicketResponse ticket) {
+        return new TicketBatchItemResult(ticket.idTickets(), Status.UPDATED, ticket, null);
+    }
+
+    public static TicketBatchItemResult notFound(Integer id) {
+        return new TicketBatchItemResult(id, Status.NOT_FOUND, null, "Ticket not found with id: " + id);
+    }
+
+    public static TicketBatchItemResult invalid(Integer id, String error) {
+        return new TicketBatchItemResult(id, Status.INVALID, null, error);
+    }
+}
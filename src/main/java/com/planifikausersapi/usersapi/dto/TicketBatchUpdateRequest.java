@@ -0,0 +1,8 @@
+package com.planifikausersapi.usersapi.dto;
+
+public record TicketBatchUpdateRequest(
+        Integer id,
+        Integer idTicketStatus,
+        String answer,
+        Integer idDrimsoftUser) {
+}
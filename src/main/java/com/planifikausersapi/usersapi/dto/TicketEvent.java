@@ -0,0 +1,19 @@
+package com.planifikausersapi.usersapi.dto;
+
+/**
+ * Evento de GET /tickets/stream. id crece de a uno y es el que el cliente devuelve en
+ * Last-Event-ID al reconectar. ticket viene null en deleted y en los cambios hechos por otra
+ * réplica; en ese caso se pide con GET /tickets/{id}. reset avisa que el hueco no se puede
+ * reconstruir desde memoria y el cliente debe recargar el listado.
+ */
+public record TicketEvent(long id, String type, Integer idTickets, TicketResponse ticket) {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String DELETED = "deleted";
+    public static final String RESET = "reset";
+
+    public static TicketEvent reset(long id) {
+        return new TicketEvent(id, RESET, null, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.planifikausersapi.usersapi.dto;
+
+import java.util.List;
+
+public record TicketPageResponse(
+        List<TicketResponse> items,
+        int page,
+        int size,
+        long totalElements,
+        int totalPages,
+        boolean hasNext,
+        boolean hasPrevious) {
+}
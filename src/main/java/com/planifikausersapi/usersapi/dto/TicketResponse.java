@@ -0,0 +1,27 @@
+package com.planifikausersapi.usersapi.dto;
+
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+
+public record TicketResponse(
+        Integer idTickets,
+        Integer idPlanifikaUser,
+        Integer idTicketStatus,
+        String ticketStatusName,
+        String title,
+        String description,
+        String answer,
+        Integer idDrimsoftUser) {
+
+    public static TicketResponse from(TicketSupport ticket, TicketStatus status) {
+        return new TicketResponse(
+                ticket.getIdTickets(),
+                ticket.getIdPlanifikaUser(),
+                ticket.getIdTicketStatus(),
+                status != null ? status.getName() : null,
+                ticket.getTitle(),
+                ticket.getDescription(),
+                ticket.getAnswer(),
+                ticket.getIdDrimsoftUser());
+    }
+}
@@ -0,0 +1,14 @@
+package com.planifikausersapi.usersapi.dto;
+
+import java.util.List;
+
+/**
+ * Página de GET /tickets/paged?mode=seek. La siguiente página se pide con after=nextCursor;
+ * totalElements solo viene si se pidió includeTotal=true.
+ */
+public record TicketSeekPageResponse(
+        List<TicketResponse> items,
+        Integer nextCursor,
+        boolean hasNext,
+        Long totalElements) {
+}
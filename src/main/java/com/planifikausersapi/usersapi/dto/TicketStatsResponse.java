@@ -0,0 +1,21 @@
+package com.planifikausersapi.usersapi.dto;
+
+import java.util.List;
+
+/**
+ * Conteos de GET /tickets/stats. Un ticket está respondido si tiene answer no vacío; el resto
+ * cuenta como abierto. En byDrimsoftUser, idDrimsoftUser null agrupa los tickets sin asignar.
+ */
+public record TicketStatsResponse(
+        long total,
+        long open,
+        long answered,
+        List<StatusCount> byStatus,
+        List<DrimsoftUserCount> byDrimsoftUser) {
+
+    public record StatusCount(Integer idTicketStatus, String ticketStatusName, long count) {
+    }
+
+    public record DrimsoftUserCount(Integer idDrimsoftUser, long count) {
+    }
+}
@@ -0,0 +1,20 @@
+package com.planifikausersapi.usersapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Avance acumulado de una importación; se emite después de cada lote y al final con done=true.
+ */
+public record UserImportProgress(
+        long processed,
+        long created,
+        long skipped,
+        long invalid,
+        long failed,
+        boolean done) {
+
+    @JsonProperty("type")
+    public String type() {
+        return "progress";
+    }
+}
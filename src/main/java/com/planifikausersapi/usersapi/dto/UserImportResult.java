@@ -0,0 +1,25 @@
+package com.planifikausersapi.usersapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.UUID;
+
+/**
+ * Resultado de una fila de POST /users/import; row es la posición 1-based en la entrada.
+ */
+public record UserImportResult(
+        long row,
+        UUID supabaseUserId,
+        Outcome outcome,
+        Integer idUser,
+        String error) {
+
+    public enum Outcome {
+        CREATED, SKIPPED_EXISTING, INVALID, FAILED
+    }
+
+    @JsonProperty("type")
+    public String type() {
+        return "row";
+    }
+}
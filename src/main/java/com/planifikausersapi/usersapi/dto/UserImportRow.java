@@ -0,0 +1,12 @@
+package com.planifikausersapi.usersapi.dto;
+
+import java.util.UUID;
+
+public record UserImportRow(
+        UUID supabaseUserId,
+        String name,
+        String photoUrl,
+        Integer idUserStatus,
+        Integer idUserType,
+        Integer idOrganization) {
+}
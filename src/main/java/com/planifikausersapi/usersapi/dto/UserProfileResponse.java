@@ -0,0 +1,34 @@
+package com.planifikausersapi.usersapi.dto;
+
+import java.util.UUID;
+
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+
+/**
+ * Respuesta de GET /auth/me. userType e idusertype repiten el mismo valor a propósito: el
+ * frontend lee ambos nombres.
+ */
+public record UserProfileResponse(
+        Integer userId,
+        String name,
+        String email,
+        String photoUrl,
+        Integer userType,
+        Integer idusertype,
+        Integer iduserstatus,
+        Integer idorganization,
+        UUID supabaseUserId) {
+
+    public static UserProfileResponse from(UserPlanifika user, String email) {
+        return new UserProfileResponse(
+                user.getIdUser(),
+                user.getName(),
+                email, // Email desde Supabase
+                user.getPhotoUrl(),
+                user.getIdUserType(),
+                user.getIdUserType(),
+                user.getIdUserStatus(),
+                user.getIdOrganization(),
+                user.getSupabaseUserId());
+    }
+}
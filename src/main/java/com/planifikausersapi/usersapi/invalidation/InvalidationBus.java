@@ -0,0 +1,138 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Avisa a las demás réplicas que algo cambió, para que descarten lo que tienen en memoria sin
+ * esperar al TTL. Cada canal vive en la base donde ocurre la escritura. Los avisos de esta
+ * misma réplica se ignoran al volver: su estado local ya se actualizó al escribir.
+ */
+public class InvalidationBus implements AutoCloseable {
+
+    /** Payload: supabaseUserId del usuario modificado. */
+    public static final String USERS_CHANNEL = "planifika_users";
+    /** Payload: tipo:idTickets, con el tipo de TicketEvent. */
+    public static final String TICKETS_CHANNEL = "drimsoft_tickets";
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+    private static final char SEPARATOR = '|';
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, InvalidationTransport> transports;
+    private final Map<String, List<InvalidationListener>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Counter> sent = new HashMap<>();
+    private final Map<String, Counter> received = new HashMap<>();
+
+    public InvalidationBus(Map<String, InvalidationTransport> transportsByChannel, MeterRegistry meterRegistry) {
+        this.transports = Map.copyOf(transportsByChannel);
+        for (String channel : transports.keySet()) {
+            sent.put(channel, Counter.builder("invalidation.messages").tag("channel", channel)
+                    .tag("direction", "sent").register(meterRegistry));
+            received.put(channel, Counter.builder("invalidation.messages").tag("channel", channel)
+                    .tag("direction", "received").register(meterRegistry));
+        }
+
+        // Un transporte por base puede atender varios canales
+        Map<InvalidationTransport, List<String>> channelsByTransport = new IdentityHashMap<>();
+        transports.forEach((channel, transport) ->
+                channelsByTransport.computeIfAbsent(transport, t -> new ArrayList<>()).add(channel));
+        channelsByTransport.forEach((transport, channels) -> transport.listen(channels, new Receiver(channels)));
+    }
+
+    public void subscribe(String channel, InvalidationListener listener) {
+        requireTransport(channel);
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void publish(String channel, String payload) {
+        requireTransport(channel).send(channel, nodeId + SEPARATOR + payload);
+        sent.get(channel).increment();
+    }
+
+    /**
+     * Publica al confirmar la transacción actual: antes de eso las otras réplicas volverían a
+     * leer el dato viejo. Fuera de una transacción publica enseguida.
+     */
+    public void publishAfterCommit(String channel, String payload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(channel, payload);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(channel, payload);
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        Set<InvalidationTransport> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(transports.values());
+        distinct.forEach(InvalidationTransport::close);
+    }
+
+    private InvalidationTransport requireTransport(String channel) {
+        InvalidationTransport transport = transports.get(channel);
+        if (transport == null) {
+            throw new IllegalArgumentException("Canal de invalidación desconocido: " + channel);
+        }
+        return transport;
+    }
+
+    private class Receiver implements InvalidationTransport.Receiver {
+
+        private final List<String> channels;
+
+        Receiver(List<String> channels) {
+            this.channels = List.copyOf(channels);
+        }
+
+        @Override
+        public void onMessage(String channel, String message) {
+            int separator = message.indexOf(SEPARATOR);
+            if (separator < 0 || message.substring(0, separator).equals(nodeId)) {
+                return;
+            }
+            Counter counter = received.get(channel);
+            if (counter != null) {
+                counter.increment();
+            }
+            String payload = message.substring(separator + 1);
+            for (InvalidationListener listener : listeners.getOrDefault(channel, List.of())) {
+                try {
+                    listener.onMessage(payload);
+                } catch (RuntimeException e) {
+                    log.warn("Error aplicando un aviso de {}: {}", channel, e.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void onResync() {
+            log.info("Reconexión del bus de invalidación; se descarta el estado de {}", channels);
+            for (String channel : channels) {
+                for (InvalidationListener listener : listeners.getOrDefault(channel, List.of())) {
+                    listener.onResync();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+/**
+ * Recibe los avisos de otras réplicas para un canal de {@link InvalidationBus}. Corre en el
+ * hilo del transporte, así que debe ser rápido y no bloquear.
+ */
+@FunctionalInterface
+public interface InvalidationListener {
+
+    void onMessage(String payload);
+
+    /**
+     * El transporte se reconectó y pudo perderse algún aviso: hay que descartar todo lo que
+     * dependa de este canal.
+     */
+    default void onResync() {
+    }
+}
@@ -0,0 +1,25 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+import java.util.Collection;
+
+/**
+ * Canal de avisos entre réplicas que usa {@link InvalidationBus}: PostgreSQL LISTEN/NOTIFY en
+ * producción y una implementación en memoria en los tests. Los avisos son best effort; lo que
+ * se pierda lo cubre el TTL de cada caché.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+    void listen(Collection<String> channels, Receiver receiver);
+
+    void send(String channel, String payload);
+
+    @Override
+    void close();
+
+    interface Receiver {
+
+        void onMessage(String channel, String payload);
+
+        void onResync();
+    }
+}
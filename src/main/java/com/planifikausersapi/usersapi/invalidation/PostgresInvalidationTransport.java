@@ -0,0 +1,178 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.regex.Pattern;
+
+/**
+ * {@link InvalidationTransport} sobre LISTEN/NOTIFY con una conexión propia, fuera del pool
+ * Hikari. Un solo hilo espera avisos con getNotifications y, entre esperas, envía los
+ * pg_notify pendientes por la misma conexión, así publicar no toma conexiones del pool.
+ *
+ * LISTEN necesita una sesión: la URL debe ser la conexión directa (5432) o el pooler en modo
+ * sesión, nunca el pooler en modo transacción (6543). Si la conexión se corta se reintenta con
+ * espera creciente y, al volver, se pide a los receptores que descarten su estado; los avisos
+ * que no llegaron a enviarse siguen en la cola y salen por la nueva conexión.
+ */
+public class PostgresInvalidationTransport implements InvalidationTransport {
+
+    private static final Logger log = LoggerFactory.getLogger(PostgresInvalidationTransport.class);
+
+    // Los canales van sin comillas en LISTEN: solo identificadores simples
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final int OUTBOX_CAPACITY = 1024;
+    private static final long MIN_BACKOFF_MILLIS = 1_000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private record Notification(String channel, String payload) {
+    }
+
+    /** Abre la conexión dedicada; en los tests reemplaza a DriverManager. */
+    interface ConnectionSource {
+
+        Connection open() throws SQLException;
+    }
+
+    private final String name;
+    private final ConnectionSource connections;
+    private final int pollMillis;
+    private final BlockingQueue<Notification> outbox = new ArrayBlockingQueue<>(OUTBOX_CAPACITY);
+
+    private volatile boolean running = true;
+    private Thread listener;
+
+    public PostgresInvalidationTransport(String name, String url, String username, String password,
+            Duration pollInterval) {
+        this(name, () -> DriverManager.getConnection(url, username, password), pollInterval);
+    }
+
+    PostgresInvalidationTransport(String name, ConnectionSource connections, Duration pollInterval) {
+        this.name = name;
+        this.connections = connections;
+        this.pollMillis = (int) Math.max(1, pollInterval.toMillis());
+    }
+
+    @Override
+    public synchronized void listen(Collection<String> channels, Receiver receiver) {
+        if (listener != null) {
+            throw new IllegalStateException("El transporte " + name + " ya está escuchando");
+        }
+        for (String channel : channels) {
+            if (!CHANNEL.matcher(channel).matches()) {
+                throw new IllegalArgumentException("Canal inválido: " + channel);
+            }
+        }
+        List<String> listened = List.copyOf(channels);
+        listener = Thread.ofPlatform()
+            .name("pg-listen-" + name)
+            .daemon()
+            .start(() -> run(listened, receiver));
+    }
+
+    @Override
+    public void send(String channel, String payload) {
+        if (!outbox.offer(new Notification(channel, payload))) {
+            log.warn("Cola de avisos de {} llena; se descarta un aviso de {}", name, channel);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        Thread thread;
+        synchronized (this) {
+            thread = listener;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(pollMillis * 2L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run(List<String> channels, Receiver receiver) {
+        long backoffMillis = MIN_BACKOFF_MILLIS;
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = connections.open()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    for (String channel : channels) {
+                        statement.execute("LISTEN " + channel);
+                    }
+                }
+                if (reconnecting) {
+                    receiver.onResync();
+                }
+                reconnecting = true;
+                backoffMillis = MIN_BACKOFF_MILLIS;
+                log.info("Escuchando {} en la base {}", channels, name);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (PreparedStatement notify = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                    while (running) {
+                        PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                        if (notifications != null) {
+                            for (PGNotification notification : notifications) {
+                                dispatch(receiver, notification.getName(), notification.getParameter());
+                            }
+                        }
+                        flush(notify);
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                log.warn("Conexión de avisos de {} perdida ({}); reintento en {} ms", name, e.getMessage(),
+                        backoffMillis);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Un aviso sale de la cola recién después de enviarlo: si la conexión cae a mitad, el que
+     * falló y los siguientes se envían al reconectar. Solo se envía lo que había al empezar,
+     * para volver pronto a getNotifications.
+     */
+    private void flush(PreparedStatement notify) throws SQLException {
+        for (int pending = outbox.size(); pending > 0; pending--) {
+            Notification notification = outbox.peek();
+            notify.setString(1, notification.channel());
+            notify.setString(2, notification.payload());
+            notify.execute();
+            outbox.poll();
+        }
+    }
+
+    private void dispatch(Receiver receiver, String channel, String payload) {
+        try {
+            receiver.onMessage(channel, payload);
+        } catch (RuntimeException e) {
+            log.warn("Error procesando un aviso de {}: {}", channel, e.getMessage());
+        }
+    }
+}
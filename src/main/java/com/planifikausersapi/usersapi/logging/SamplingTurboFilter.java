@@ -0,0 +1,53 @@
+package com.planifikausersapi.usersapi.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Muestreo de logs por categoría: de los eventos INFO o menores de los loggers que empiezan con
+ * loggerPrefix deja pasar uno de cada keepOneIn. WARN y ERROR pasan siempre. Se configura en
+ * logback-spring.xml para las rutas de login, que escriben una línea por intento.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+
+    private final AtomicLong counter = new AtomicLong();
+    private String loggerPrefix;
+    private int keepOneIn = 1;
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setKeepOneIn(int keepOneIn) {
+        this.keepOneIn = keepOneIn;
+    }
+
+    @Override
+    public void start() {
+        if (loggerPrefix == null || loggerPrefix.isBlank()) {
+            addError("SamplingTurboFilter requiere loggerPrefix");
+            return;
+        }
+        if (keepOneIn < 1) {
+            addError("keepOneIn debe ser mayor o igual a 1, era " + keepOneIn);
+            return;
+        }
+        super.start();
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        // format == null: logback solo pregunta si el nivel está habilitado (isInfoEnabled)
+        if (!isStarted() || keepOneIn == 1 || format == null || level.isGreaterOrEqual(Level.WARN)
+                || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return counter.getAndIncrement() % keepOneIn == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
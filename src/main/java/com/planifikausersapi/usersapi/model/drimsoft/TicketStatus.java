@@ -1,4 +1,4 @@
-package com.planifikausersapi.usersapi.model;
+package com.planifikausersapi.usersapi.model.drimsoft;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -1,4 +1,4 @@
-package com.planifikausersapi.usersapi.model;
+package com.planifikausersapi.usersapi.model.siu;
 
 import java.util.UUID;
 
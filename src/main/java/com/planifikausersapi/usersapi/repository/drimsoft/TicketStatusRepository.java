@@ -1,6 +1,6 @@
 package com.planifikausersapi.usersapi.repository.drimsoft;
 
-import com.planifikausersapi.usersapi.model.TicketStatus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -1,7 +1,12 @@
 package com.planifikausersapi.usersapi.repository.drimsoft;
 
-import com.planifikausersapi.usersapi.model.TicketSupport;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +15,56 @@ import java.util.List;
 public interface TicketSupportRepository extends JpaRepository<TicketSupport, Integer> {
     List<TicketSupport> findByIdPlanifikaUser(Integer idPlanifikaUser);
     List<TicketSupport> findByIdTicketStatus(Integer idTicketStatus);
+
+    // Paginación por keyset sobre idtickets DESC: recorre la PK desde el último id visto, sin OFFSET
+    List<TicketSupport> findByOrderByIdTicketsDesc(Limit limit);
+
+    List<TicketSupport> findByIdTicketsLessThanOrderByIdTicketsDesc(Integer idTickets, Limit limit);
+
+    /**
+     * Búsqueda de texto completo sobre title, description y answer, ordenada por relevancia.
+     * Usa la columna generada search_vector y su índice GIN (db/drimsoft/001_ticketsupport_search.sql).
+     * websearch_to_tsquery acepta la sintaxis de un buscador: "frase exacta", -excluir, OR.
+     */
+    @Query(value = "SELECT t.* FROM ticketsupport t"
+            + " WHERE t.search_vector @@ websearch_to_tsquery('spanish', :query)"
+            + " ORDER BY ts_rank_cd(t.search_vector, websearch_to_tsquery('spanish', :query)) DESC, t.idtickets DESC",
+            countQuery = "SELECT count(*) FROM ticketsupport t"
+            + " WHERE t.search_vector @@ websearch_to_tsquery('spanish', :query)",
+            nativeQuery = true)
+    Page<TicketSupport> search(@Param("query") String query, Pageable pageable);
+
+    /**
+     * Todos los conteos de GET /tickets/stats en una sola pasada por la tabla. groupingId dice
+     * a qué agrupación pertenece cada fila: 3 por estado, 5 por usuario Drimsoft,
+     * 6 respondido/abierto y 7 el total.
+     */
+    @Query(value = "SELECT GROUPING(t.idticketstatus, t.iddrimsoftuser, (t.answer IS NOT NULL AND btrim(t.answer) <> ''))"
+            + " AS \"groupingId\","
+            + " t.idticketstatus AS \"idTicketStatus\","
+            + " t.iddrimsoftuser AS \"idDrimsoftUser\","
+            + " (t.answer IS NOT NULL AND btrim(t.answer) <> '') AS \"answered\","
+            + " count(*) AS \"total\""
+            + " FROM ticketsupport t"
+            + " GROUP BY GROUPING SETS ((t.idticketstatus), (t.iddrimsoftuser),"
+            + " ((t.answer IS NOT NULL AND btrim(t.answer) <> '')), ())",
+            nativeQuery = true)
+    List<TicketCountRow> countGrouped();
+
+    interface TicketCountRow {
+        int BY_STATUS = 3;
+        int BY_DRIMSOFT_USER = 5;
+        int BY_ANSWERED = 6;
+        int TOTAL = 7;
+
+        Integer getGroupingId();
+
+        Integer getIdTicketStatus();
+
+        Integer getIdDrimsoftUser();
+
+        Boolean getAnswered();
+
+        Long getTotal();
+    }
 }
@@ -1,10 +1,15 @@
 package com.planifikausersapi.usersapi.repository.planifika;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import com.planifikausersapi.usersapi.model.UserPlanifika;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -12,4 +17,21 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<UserPlanifika, Integer> {
 
     Optional<UserPlanifika> findBySupabaseUserId(UUID supabaseUserId);
+
+    // Búsqueda por conjunto para la importación masiva: una consulta por lote
+    @Query("SELECT u.supabaseUserId FROM UserPlanifika u WHERE u.supabaseUserId IN :ids")
+    List<UUID> findExistingSupabaseUserIds(@Param("ids") Collection<UUID> ids);
+
+    // Paginación por keyset sobre iduser: cada página arranca después del último id visto
+    @Query("SELECT u FROM UserPlanifika u"
+            + " WHERE (:after IS NULL OR u.idUser > :after)"
+            + " AND (:idOrganization IS NULL OR u.idOrganization = :idOrganization)"
+            + " AND (:idUserStatus IS NULL OR u.idUserStatus = :idUserStatus)"
+            + " AND (:idUserType IS NULL OR u.idUserType = :idUserType)"
+            + " ORDER BY u.idUser ASC")
+    List<UserPlanifika> findPageAfter(@Param("after") Integer after,
+            @Param("idOrganization") Integer idOrganization,
+            @Param("idUserStatus") Integer idUserStatus,
+            @Param("idUserType") Integer idUserType,
+            Limit limit);
 }
@@ -1,13 +1,18 @@
 package com.planifikausersapi.usersapi.repository.siu;
 
-import com.planifikausersapi.usersapi.model.UserSIU;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface SIUUserRepository extends JpaRepository<UserSIU, Integer> {
     Optional<UserSIU> findBySupabaseUserId(UUID supabaseUserId);
+
+    // Lectura por keyset para la sincronización con Planifika
+    List<UserSIU> findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(Integer after, Limit limit);
 }
@@ -0,0 +1,137 @@
+package com.planifikausersapi.usersapi.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admisión delante de un pool: un semáforo justo con tantos permisos como conexiones tiene el
+ * pool y un tope de hilos esperando. Con hilos virtuales no hay un pool de Tomcat que limite
+ * cuántas peticiones esperan una conexión; esto evita que una ráfaga contra Drimsoft acumule
+ * miles de esperas y, pasado el tope, la rechaza de inmediato en vez de dejarla vencer el
+ * connectionTimeout de Hikari. El permiso se devuelve al cerrar la conexión.
+ *
+ * Es AutoCloseable para que Spring, al inferir el destroy method del bean, cierre el pool de
+ * abajo: DelegatingDataSource solo no expone el close() de HikariDataSource.
+ *
+ * Métricas, con tag datasource: datasource.admission.available,
+ * datasource.admission.waiting y datasource.admission.rejections{reason}.
+ */
+public class AdmissionControlDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long acquireTimeoutNanos;
+    private final Counter queueFullRejections;
+    private final Counter timeoutRejections;
+
+    public AdmissionControlDataSource(DataSource target, String name, int maxConcurrent, int maxWaiting,
+            Duration acquireTimeout, MeterRegistry meterRegistry) {
+        super(target);
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+
+        this.queueFullRejections = Counter.builder("datasource.admission.rejections").tag("datasource", name)
+                .tag("reason", "queue_full").register(meterRegistry);
+        this.timeoutRejections = Counter.builder("datasource.admission.rejections").tag("datasource", name)
+                .tag("reason", "timeout").register(meterRegistry);
+        Gauge.builder("datasource.admission.available", permits, Semaphore::availablePermits)
+                .tag("datasource", name).register(meterRegistry);
+        Gauge.builder("datasource.admission.waiting", permits, Semaphore::getQueueLength)
+                .tag("datasource", name).register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        // getQueueLength es aproximado; alcanza para cortar una ráfaga
+        if (permits.getQueueLength() >= maxWaiting) {
+            queueFullRejections.increment();
+            throw new SQLTransientConnectionException(
+                    "Datasource " + name + " saturado: " + maxWaiting + " peticiones ya esperan conexión");
+        }
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                timeoutRejections.increment();
+                throw new SQLTransientConnectionException("Datasource " + name + " sin conexión disponible tras "
+                        + Duration.ofNanos(acquireTimeoutNanos).toMillis() + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido esperando conexión de " + name, e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                    if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    if ("close".equals(method.getName()) && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,157 @@
+package com.planifikausersapi.usersapi.resilience;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por conteo: mira los resultados de las últimas {@code windowSize} llamadas y
+ * abre cuando la tasa de fallos llega al umbral. Abierto rechaza todo durante
+ * {@code openDuration}; luego pasa a semiabierto y deja pasar {@code halfOpenProbes} llamadas
+ * de prueba: si todas salen bien cierra, con el primer fallo vuelve a abrir.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int code;
+
+        State(int code) {
+            this.code = code;
+        }
+
+        public int code() {
+            return code;
+        }
+    }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoClock;
+    private final BiConsumer<State, State> onTransition;
+
+    // Ventana circular de resultados en estado cerrado (true = fallo)
+    private final boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int probesIssued;
+    private int probesSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, Duration openDuration,
+            int halfOpenProbes, LongSupplier nanoClock, BiConsumer<State, State> onTransition) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("Configuración de circuit breaker inválida");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.nanoClock = nanoClock;
+        this.onTransition = onTransition;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Pide permiso para una llamada. Si devuelve true, el llamador debe informar exactamente
+     * uno de {@link #onSuccess()}, {@link #onFailure()} o {@link #releasePermission()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < openDurationNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                return false;
+            }
+            probesIssued++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        switch (state) {
+            case CLOSED -> record(false);
+            case HALF_OPEN -> {
+                probesSucceeded++;
+                if (probesSucceeded >= halfOpenProbes) {
+                    transitionTo(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // Respuesta tardía de una llamada anterior a la apertura
+            }
+        }
+    }
+
+    public synchronized void onFailure() {
+        switch (state) {
+            case CLOSED -> {
+                record(true);
+                if (recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold) {
+                    transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> transitionTo(State.OPEN);
+            case OPEN -> {
+            }
+        }
+    }
+
+    /**
+     * La llamada terminó sin resultado (cancelada): en semiabierto devuelve la prueba.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesIssued > probesSucceeded) {
+            probesIssued--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == windowSize) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % windowSize;
+    }
+
+    private void transitionTo(State target) {
+        State previous = state;
+        state = target;
+        switch (target) {
+            case OPEN -> openedAtNanos = nanoClock.getAsLong();
+            case HALF_OPEN -> {
+                probesIssued = 0;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                recorded = 0;
+                next = 0;
+                failures = 0;
+            }
+        }
+        onTransition.accept(previous, target);
+    }
+}
@@ -0,0 +1,19 @@
+package com.planifikausersapi.usersapi.resilience;
+
+/**
+ * Respuesta de error de una API de Supabase, con el código HTTP para poder distinguir un
+ * error del cliente (4xx) de una falla del servicio (5xx).
+ */
+public class SupabaseApiException extends RuntimeException {
+
+    private final int statusCode;
+
+    public SupabaseApiException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,119 @@
+package com.planifikausersapi.usersapi.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker más bulkhead de concurrencia para un servicio externo. Solo cuentan como
+ * falla los errores del servicio (5xx, conexión, timeout); un 4xx como credenciales inválidas
+ * no abre el circuito.
+ *
+ * Métricas, con tag upstream: upstream.circuit.state (0 cerrado, 1 abierto, 2 semiabierto),
+ * upstream.circuit.transitions{from,to}, upstream.rejections{reason} y
+ * upstream.bulkhead.available.
+ */
+public class UpstreamGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamGuard.class);
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    public UpstreamGuard(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+            Duration openDuration, int halfOpenProbes, int maxConcurrentCalls, MeterRegistry meterRegistry) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenProbes,
+                maxConcurrentCalls, meterRegistry, System::nanoTime);
+    }
+
+    UpstreamGuard(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+            Duration openDuration, int halfOpenProbes, int maxConcurrentCalls, MeterRegistry meterRegistry,
+            LongSupplier nanoClock) {
+        this.name = name;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, openDuration,
+                halfOpenProbes, nanoClock, (from, to) -> {
+                    log.warn("Circuito {}: {} -> {}", name, from, to);
+                    meterRegistry.counter("upstream.circuit.transitions", "upstream", name,
+                            "from", from.name(), "to", to.name()).increment();
+                });
+
+        this.circuitOpenRejections = Counter.builder("upstream.rejections").tag("upstream", name)
+                .tag("reason", "circuit_open").register(meterRegistry);
+        this.bulkheadFullRejections = Counter.builder("upstream.rejections").tag("upstream", name)
+                .tag("reason", "bulkhead_full").register(meterRegistry);
+        Gauge.builder("upstream.circuit.state", circuitBreaker, cb -> cb.state().code())
+                .tag("upstream", name).register(meterRegistry);
+        Gauge.builder("upstream.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("upstream", name).register(meterRegistry);
+    }
+
+    public CircuitBreaker.State state() {
+        return circuitBreaker.state();
+    }
+
+    /**
+     * Ejecuta la llamada si el circuito y el bulkhead lo permiten; si no, falla de inmediato
+     * con {@link UpstreamUnavailableException} sin suscribirse a call.
+     */
+    public <T> Mono<T> protect(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                circuitOpenRejections.increment();
+                return Mono.error(new UpstreamUnavailableException(name, "circuito abierto"));
+            }
+            if (!bulkhead.tryAcquire()) {
+                circuitBreaker.releasePermission();
+                bulkheadFullRejections.increment();
+                return Mono.error(new UpstreamUnavailableException(name, "demasiadas llamadas en curso"));
+            }
+            // El permiso se devuelve antes de propagar la señal: con doFinally quien encadena otra
+            // llamada apenas termina block() todavía lo encontraba tomado
+            AtomicBoolean finished = new AtomicBoolean();
+            return call
+                    .doOnSuccess(value -> circuitBreaker.onSuccess())
+                    .doOnError(e -> {
+                        if (isUpstreamFailure(e)) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnTerminate(() -> {
+                        if (finished.compareAndSet(false, true)) {
+                            bulkhead.release();
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (finished.compareAndSet(false, true)) {
+                            circuitBreaker.releasePermission();
+                            bulkhead.release();
+                        }
+                    });
+        });
+    }
+
+    static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof SupabaseApiException apiException) {
+            return apiException.getStatusCode() >= 500;
+        }
+        if (e instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError();
+        }
+        return e instanceof WebClientRequestException || e instanceof TimeoutException;
+    }
+}
@@ -0,0 +1,19 @@
+package com.planifikausersapi.usersapi.resilience;
+
+/**
+ * La llamada al servicio externo se rechazó sin intentarla: el circuito está abierto o el
+ * bulkhead no tiene cupo. Los controladores la traducen a 503.
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    private final String upstream;
+
+    public UpstreamUnavailableException(String upstream, String reason) {
+        super("Servicio " + upstream + " no disponible temporalmente (" + reason + ")");
+        this.upstream = upstream;
+    }
+
+    public String getUpstream() {
+        return upstream;
+    }
+}
@@ -1,60 +1,91 @@
 package com.planifikausersapi.usersapi.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import com.planifikausersapi.usersapi.model.UserPlanifika;
+import com.planifikausersapi.usersapi.cache.SingleFlight;
+import com.planifikausersapi.usersapi.cache.UserPlanifikaCache;
+import com.planifikausersapi.usersapi.dto.SignUpResponse;
+import com.planifikausersapi.usersapi.dto.UserProfileResponse;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
 import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+import com.planifikausersapi.usersapi.resilience.SupabaseApiException;
+import com.planifikausersapi.usersapi.resilience.UpstreamGuard;
+import com.planifikausersapi.usersapi.resilience.UpstreamUnavailableException;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.UUID;
 
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
     private final WebClient webClient;
-    private final String supabaseUrl;
-    private final String anonKey;
+    private final UpstreamGuard authGuard;
     private final UserRepository userRepository;
+    private final UserPlanifikaCache userPlanifikaCache;
+    private final JwtDecoder jwtDecoder;
+    private final Scheduler jpaScheduler;
+    private final boolean remoteUserLookup;
+    private final Duration meCacheTtl;
+    private final SingleFlight<String, UserProfileResponse> meRequests;
+    private final String serviceKey;
 
-    public AuthService(@Value("${supabase.url}") String supabaseUrl,
-            @Value("${supabase.anon.key}") String anonKey,
-            WebClient.Builder webClientBuilder,
-            UserRepository userRepository) {
-        this.supabaseUrl = supabaseUrl;
-        this.anonKey = anonKey;
+    public AuthService(@Value("${supabase.auth.remote-user-lookup:false}") boolean remoteUserLookup,
+            @Qualifier("supabaseWebClient") WebClient webClient,
+            @Qualifier("planifikaAuthGuard") UpstreamGuard authGuard,
+            UserRepository userRepository,
+            UserPlanifikaCache userPlanifikaCache,
+            JwtDecoder jwtDecoder,
+            @Qualifier("jpaScheduler") Scheduler jpaScheduler,
+            @Value("${auth.me.cache-ttl:PT5S}") Duration meCacheTtl,
+            @Value("${auth.me.cache-max-size:10000}") int meCacheMaxSize,
+            MeterRegistry meterRegistry,
+            @Value("${supabase.service.key}") String serviceKey) {
+        this.remoteUserLookup = remoteUserLookup;
+        this.serviceKey = serviceKey;
+        this.meCacheTtl = meCacheTtl;
+        this.meRequests = new SingleFlight<>("auth.me", meCacheMaxSize, meterRegistry);
+        this.webClient = webClient;
+        this.authGuard = authGuard;
         this.userRepository = userRepository;
-        this.webClient = webClientBuilder
-                .baseUrl(supabaseUrl)
-                .defaultHeader("apiKey", anonKey)
-                .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + anonKey)
-                .build();
+        this.userPlanifikaCache = userPlanifikaCache;
+        this.jwtDecoder = jwtDecoder;
+        this.jpaScheduler = jpaScheduler;
     }
 
-    public Mono<Map<String, Object>> signUp(String name, String email, String password, String photoUrl,
+    public Mono<SignUpResponse> signUp(String name, String email, String password, String photoUrl,
             Integer userRole) {
 
         // 1. DEFINE GENERIC TYPES EXPLICITLY to resolve 'Cannot infer type' errors
         ParameterizedTypeReference<Map<String, Object>> mapType = new ParameterizedTypeReference<Map<String, Object>>() {
         };
 
-        // This is the CRITICAL type for the DB response: a List of Maps
-        ParameterizedTypeReference<List<Map<String, Object>>> listMapType = new ParameterizedTypeReference<List<Map<String, Object>>>() {
-        };
-
         Map<String, Object> authPayload = Map.of(
                 "email", email,
                 "password", password);
 
         // 1. Supabase Auth Call
-        return webClient.post()
+        return authGuard.protect(webClient.post()
                 .uri("/auth/v1/signup")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(authPayload)
@@ -62,12 +93,11 @@ public class AuthService {
                 .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
                         clientResponse -> clientResponse.bodyToMono(String.class)
                                 .defaultIfEmpty("[No response body]")
-                                .flatMap(errorBody -> Mono.error(new RuntimeException(
+                                .flatMap(errorBody -> Mono.error(new SupabaseApiException(
+                                        clientResponse.statusCode().value(),
                                         "Supabase Auth Error (" + clientResponse.statusCode() + "): " + errorBody))))
-                .bodyToMono(mapType) // Use explicit type for Mono<Map>
+                .bodyToMono(mapType)) // Use explicit type for Mono<Map>
                 .flatMap(response -> {
-                    System.out.println("📥 Respuesta Supabase Auth: " + response);
-
                     Object idCandidate = null;
                     if (response.containsKey("user")) {
                         @SuppressWarnings("unchecked")
@@ -90,58 +120,42 @@ public class AuthService {
                         return Mono.error(new RuntimeException("Error al parsear ID de Supabase: " + idCandidate, e));
                     }
 
-                    // Prepare DB Insertion Payload (Using HashMap for null support)
-                    Map<String, Object> newUser = new HashMap<>();
-                    newUser.put("supabaseuserid", supabaseUserId);
-                    newUser.put("name", name);
-                    newUser.put("photourl", photoUrl);
-                    newUser.put("iduserstatus", 1);
-                    newUser.put("idusertype", userRole != null ? userRole : 1);
-                    newUser.put("idorganization", null);
-
-                    // 2. Supabase DB (PostgREST) Call
-                    return webClient.post()
-                            .uri("/rest/v1/userplanifika")
-                            .header("Prefer", "return=representation")
-                            .contentType(MediaType.APPLICATION_JSON)
-                            .bodyValue(newUser)
-                            .retrieve()
-                            .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-                                    clientResponse -> clientResponse.bodyToMono(String.class)
-                                            .defaultIfEmpty("[No response body]")
-                                            .flatMap(errorBody -> Mono.error(new RuntimeException("Supabase DB Error ("
-                                                    + clientResponse.statusCode() + "): " + errorBody))))
-                            // 💥 FIX: Expect a List of Maps (listMapType) to handle the JSON array.
-                            .bodyToMono(listMapType)
-                            .map(dbResponseList -> {
-                                if (dbResponseList.isEmpty()) {
-                                    throw new RuntimeException(
-                                            "Inserción en DB Supabase exitosa, pero no devolvió datos.");
-                                }
-                                // Extract the first (and only) item from the list for the final response.
-                                return Map.<String, Object>of(
-                                        "auth", response,
-                                        "db", dbResponseList.get(0));
-                            });
+                    log.info("Usuario {} registrado en Supabase Auth", supabaseUserId);
+
+                    // 2. Fila en userplanifika por JPA, sin el salto HTTP a PostgREST
+                    UserPlanifika newUser = new UserPlanifika();
+                    newUser.setSupabaseUserId(supabaseUserId);
+                    newUser.setName(name);
+                    newUser.setPhotoUrl(photoUrl);
+                    newUser.setIdUserStatus(1);
+                    newUser.setIdUserType(userRole != null ? userRole : 1);
+                    newUser.setIdOrganization(null);
+
+                    return Mono.fromCallable(() -> provisionUserRow(newUser))
+                            .subscribeOn(jpaScheduler)
+                            .onErrorResume(e -> recoverUserRow(supabaseUserId, e))
+                            .map(saved -> new SignUpResponse(response, userRow(saved)));
                 })
                 .onErrorResume(e -> {
-                    e.printStackTrace();
+                    if (e instanceof UpstreamUnavailableException) {
+                        return Mono.error(e);
+                    }
+                    log.error("Error en signUp", e);
                     String errorMessage = e.getMessage() != null ? e.getMessage()
                             : "A truly unknown error occurred, check server logs for stack trace.";
-                    return Mono.just(Map.of("error", "Error en signUp: " + errorMessage));
+                    return Mono.error(new RuntimeException("Error en signUp: " + errorMessage, e));
                 });
     }
 
     public Mono<Map<String, Object>> signIn(String email, String password) {
-        return webClient.post()
-                .uri(uriBuilder -> uriBuilder.path("/auth/v1/token")
-                        .queryParam("grant_type", "password")
-                        .build())
+        return authGuard.protect(webClient.post()
+                // URI como plantilla: es el tag uri de http.client.requests
+                .uri("/auth/v1/token?grant_type={grantType}", "password")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(Map.of("email", email, "password", password))
                 .retrieve()
                 .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-                });
+                }));
     }
 
     public Mono<Map<String, Object>> getUser(String accessToken) {
@@ -153,12 +167,44 @@ public class AuthService {
                 });
     }
 
+    /**
+     * Resuelve el usuario dueño del token. Por defecto toma 'sub' y 'email' del JWT, que ya
+     * fue verificado localmente con supabase.jwt.secret; solo llama a /auth/v1/user de
+     * Supabase cuando supabase.auth.remote-user-lookup=true.
+     */
+    public Mono<Map<String, Object>> resolveUser(String accessToken, Jwt jwt) {
+        if (remoteUserLookup) {
+            return getUser(accessToken);
+        }
+        return Mono.fromCallable(() -> {
+            Jwt verified = jwt != null && accessToken.equals(jwt.getTokenValue())
+                    ? jwt
+                    : jwtDecoder.decode(accessToken);
+            Map<String, Object> user = new HashMap<>();
+            user.put("id", verified.getSubject());
+            user.put("email", verified.getClaimAsString("email"));
+            return user;
+        });
+    }
+
     /**
      * Obtiene la información completa del usuario combinando datos de Supabase Auth
-     * con datos de la base de datos de la aplicación
+     * con datos de la base de datos de la aplicación. Las llamadas simultáneas del mismo
+     * usuario comparten una sola búsqueda y el resultado se reutiliza auth.me.cache-ttl, nunca
+     * más allá del exp del token. Con remote-user-lookup se agrupa por token y no por usuario:
+     * cada token pasa por su propia verificación en /auth/v1/user.
      */
-    public Mono<Map<String, Object>> getUserWithDatabaseInfo(String accessToken) {
-        return getUser(accessToken)
+    public Mono<UserProfileResponse> getUserWithDatabaseInfo(String accessToken, Jwt jwt) {
+        // Sin un JWT ya verificado para este token no hay subject confiable para agrupar
+        if (jwt == null || jwt.getSubject() == null || !accessToken.equals(jwt.getTokenValue())) {
+            return loadUserWithDatabaseInfo(accessToken, jwt);
+        }
+        return meRequests.execute(meRequestKey(jwt), meCacheTtl(jwt),
+                () -> loadUserWithDatabaseInfo(accessToken, jwt));
+    }
+
+    private Mono<UserProfileResponse> loadUserWithDatabaseInfo(String accessToken, Jwt jwt) {
+        return resolveUser(accessToken, jwt)
                 .flatMap((Map<String, Object> supabaseUser) -> {
                     try {
                         // Extraer el ID del usuario de Supabase
@@ -170,26 +216,16 @@ public class AuthService {
                         UUID supabaseUserId = UUID.fromString(supabaseUserIdStr);
 
                         // Buscar el usuario en la base de datos de la aplicación
-                        return userRepository.findBySupabaseUserId(supabaseUserId)
-                                .map(userPlanifika -> {
+                        return Mono.fromCallable(() -> userPlanifikaCache.get(supabaseUserId,
+                                        () -> userRepository.findBySupabaseUserId(supabaseUserId)))
+                                .subscribeOn(jpaScheduler)
+                                .flatMap(found -> found
                                     // Crear respuesta combinada con datos de la BD
-                                    Map<String, Object> response = new HashMap<>();
-                                    response.put("userId", userPlanifika.getIdUser());
-                                    response.put("name", userPlanifika.getName());
-                                    response.put("email", supabaseUser.get("email")); // Email desde Supabase
-                                    response.put("photoUrl", userPlanifika.getPhotoUrl());
-                                    response.put("userType", userPlanifika.getIdUserType()); // CRÍTICO: Tipo de usuario
-                                    response.put("idusertype", userPlanifika.getIdUserType()); // CRÍTICO: ID del tipo de
-                                                                                         // usuario
-                                    response.put("iduserstatus", userPlanifika.getIdUserStatus());
-                                    response.put("idorganization", userPlanifika.getIdOrganization());
-                                    response.put("supabaseUserId", userPlanifika.getSupabaseUserId());
-
-                                    return response;
-                                })
-                                .map(Mono::just)
-                                .orElse(Mono.error(new RuntimeException(
-                                        "Usuario no encontrado en la base de datos de la aplicación")));
+                                    .map(userPlanifika -> UserProfileResponse.from(userPlanifika,
+                                            (String) supabaseUser.get("email")))
+                                    .map(Mono::just)
+                                    .orElse(Mono.error(new RuntimeException(
+                                            "Usuario no encontrado en la base de datos de la aplicación"))));
 
                     } catch (IllegalArgumentException e) {
                         return Mono
@@ -200,13 +236,13 @@ public class AuthService {
                     }
                 })
                 .onErrorResume(e -> {
-                    System.err.println("Error en getUserWithDatabaseInfo: " + e.getMessage());
-                    e.printStackTrace();
+                    log.warn("Error en getUserWithDatabaseInfo: {}", e.getMessage(), e);
                     return Mono.error(e);
                 });
     }
 
-    public Mono<Map<String, Object>> updateProfile(String accessToken, String name, String password, String photourl) {
+    public Mono<Map<String, Object>> updateProfile(String accessToken, Jwt jwt, String name, String password,
+            String photourl) {
         boolean hasName = name != null && !name.isBlank();
         boolean hasPassword = password != null && !password.isBlank();
         boolean hasPhoto = photourl != null && !photourl.isBlank();
@@ -214,7 +250,7 @@ public class AuthService {
             return Mono.error(new IllegalArgumentException("Debe proporcionar 'name', 'password' o 'photourl' para actualizar"));
         }
 
-        return getUser(accessToken)
+        return resolveUser(accessToken, jwt)
             .flatMap((Map<String, Object> supabaseUser) -> {
                 String supabaseUserIdStr = (String) supabaseUser.get("id");
                 if (supabaseUserIdStr == null) {
@@ -270,6 +306,9 @@ public class AuthService {
                                         if (hasName) userPlanifika.setName(name);
                                         if (hasPhoto) userPlanifika.setPhotoUrl(photourl);
                                         UserPlanifika saved = userRepository.save(userPlanifika);
+                                        userPlanifikaCache.evictAfterCommit(supabaseUserId);
+                                        // Ya confirmado: /auth/me no debe servir el perfil viejo aunque falle el PUT a Auth
+                                        invalidateMeRequests(supabaseUserIdStr);
                                         Map<String, Object> result = new HashMap<>();
                                         result.put("iduser", saved.getIdUser());
                                         result.put("name", saved.getName());
@@ -278,6 +317,7 @@ public class AuthService {
                                     })
                                     .orElseThrow(() -> new RuntimeException("Usuario no encontrado en la base de datos de la aplicación"));
                         })
+                        .subscribeOn(jpaScheduler)
                         .onErrorResume(e -> Mono.error(new RuntimeException("Error al actualizar datos en la base de datos: " + e.getMessage())));
                 } else {
                     dbUpdateMono = Mono.just(Map.of("skipped", true));
@@ -291,9 +331,107 @@ public class AuthService {
                     ));
             })
             .onErrorResume(e -> {
-                e.printStackTrace();
+                log.error("Error en updateProfile", e);
                 String errorMessage = e.getMessage() != null ? e.getMessage() : "Error desconocido al actualizar el perfil";
                 return Mono.error(new RuntimeException(errorMessage));
             });
     }
+
+    /**
+     * Supabase devuelve el mismo id cuando un email sin confirmar se registra otra vez; si la
+     * fila ya existe ese alta ya estaba provista y no se inserta de nuevo.
+     */
+    private UserPlanifika provisionUserRow(UserPlanifika newUser) {
+        return userRepository.findBySupabaseUserId(newUser.getSupabaseUserId())
+                .map(existing -> {
+                    log.info("Usuario {} ya tenía fila en userplanifika; se reutiliza", existing.getSupabaseUserId());
+                    return existing;
+                })
+                .orElseGet(() -> userRepository.save(newUser));
+    }
+
+    /**
+     * Tras un insert fallido vuelve a buscar la fila: si está (alta concurrente o commit que
+     * sí llegó antes de perder la conexión) el alta ya está provista. Solo sin fila se borra el
+     * usuario de Auth; si ni siquiera se puede comprobar, no se borra nada y sigue el error.
+     */
+    private Mono<UserPlanifika> recoverUserRow(UUID supabaseUserId, Throwable insertError) {
+        return Mono.fromCallable(() -> userRepository.findBySupabaseUserId(supabaseUserId))
+                .subscribeOn(jpaScheduler)
+                .onErrorResume(checkError -> {
+                    log.error("No se pudo comprobar la fila de {} tras fallar el insert; no se revierte el alta en Auth: {}",
+                            supabaseUserId, checkError.getMessage());
+                    return Mono.error(insertError);
+                })
+                .flatMap(found -> found
+                        .map(existing -> {
+                            log.info("Usuario {} ya provisto en userplanifika pese al error del insert", supabaseUserId);
+                            return Mono.just(existing);
+                        })
+                        // Sin la fila el usuario de Auth queda huérfano: se borra antes de informar el error
+                        .orElseGet(() -> deleteAuthUser(supabaseUserId).then(Mono.error(insertError))));
+    }
+
+    /**
+     * Compensación de signUp: borra el usuario de Supabase Auth con la service key. Sin
+     * authGuard, para que un circuito abierto no deje el usuario huérfano; si el borrado falla
+     * solo se registra y sigue el error original.
+     */
+    private Mono<Void> deleteAuthUser(UUID supabaseUserId) {
+        return webClient.delete()
+                .uri("/auth/v1/admin/users/{id}", supabaseUserId)
+                .header("apiKey", serviceKey)
+                .headers(h -> h.setBearerAuth(serviceKey))
+                .retrieve()
+                .toBodilessEntity()
+                .doOnSuccess(r -> log.warn("Alta de {} revertida en Supabase Auth tras fallar la base", supabaseUserId))
+                .onErrorResume(e -> {
+                    log.error("No se pudo revertir el alta de {} en Supabase Auth; queda sin fila en userplanifika: {}",
+                            supabaseUserId, e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // Mismas claves que devolvía PostgREST, así la respuesta de signup no cambia
+    private static Map<String, Object> userRow(UserPlanifika user) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("iduser", user.getIdUser());
+        row.put("name", user.getName());
+        row.put("photourl", user.getPhotoUrl());
+        row.put("iduserstatus", user.getIdUserStatus());
+        row.put("idusertype", user.getIdUserType());
+        row.put("idorganization", user.getIdOrganization());
+        row.put("supabaseuserid", user.getSupabaseUserId());
+        return row;
+    }
+
+    // Las claves de /auth/me son el subject o subject|hash del token
+    private void invalidateMeRequests(String supabaseUserId) {
+        meRequests.invalidateIf(key -> key.equals(supabaseUserId) || key.startsWith(supabaseUserId + "|"));
+    }
+
+    // subject, o subject|sha256(token) con remote-user-lookup: un token revocado en Supabase no
+    // puede tomar el perfil que resolvió otro token del mismo usuario
+    private String meRequestKey(Jwt jwt) {
+        if (!remoteUserLookup) {
+            return jwt.getSubject();
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(jwt.getTokenValue().getBytes(StandardCharsets.UTF_8));
+            return jwt.getSubject() + "|" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private Duration meCacheTtl(Jwt jwt) {
+        Instant expiresAt = jwt.getExpiresAt();
+        if (expiresAt == null) {
+            return meCacheTtl;
+        }
+        Duration untilExpiry = Duration.between(Instant.now(), expiresAt);
+        return untilExpiry.compareTo(meCacheTtl) < 0 ? untilExpiry : meCacheTtl;
+    }
 }
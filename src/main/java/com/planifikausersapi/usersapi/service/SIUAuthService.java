@@ -2,131 +2,152 @@ package com.planifikausersapi.usersapi.service;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import com.planifikausersapi.usersapi.model.UserPlanifika;
-import com.planifikausersapi.usersapi.model.UserSIU;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import com.planifikausersapi.usersapi.resilience.SupabaseApiException;
+import com.planifikausersapi.usersapi.resilience.UpstreamGuard;
 
-import jakarta.persistence.EntityNotFoundException;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Signal;
+import reactor.core.scheduler.Scheduler;
 
 @Service
 public class SIUAuthService {
+  private static final Logger log = LoggerFactory.getLogger(SIUAuthService.class);
+
   private final WebClient webClient;
+  private final UpstreamGuard authGuard;
   private final UserService userService;
   private final SIUUserService siuUserService;
   private final String serviceKey;
+  private final Scheduler jpaScheduler;
 
-  public SIUAuthService(@Value("${supabase.url.siu}") String supabaseUrl,
-      @Value("${supabase.anon.key.siu}") String anonKey,
+  public SIUAuthService(@Qualifier("siuWebClient") WebClient webClient,
+      @Qualifier("siuAuthGuard") UpstreamGuard authGuard,
       @Value("${supabase.service.key}") String serviceKey,
-      WebClient.Builder webClientBuilder,
       UserService userService,
-      SIUUserService siuUserService) {
+      SIUUserService siuUserService,
+      @Qualifier("jpaScheduler") Scheduler jpaScheduler) {
+    this.webClient = webClient;
+    this.authGuard = authGuard;
     this.userService = userService;
     this.siuUserService = siuUserService;
     this.serviceKey = serviceKey;
-    this.webClient = webClientBuilder
-        .baseUrl(supabaseUrl)
-        .defaultHeader("apiKey", anonKey)
-        .defaultHeader(HttpHeaders.AUTHORIZATION, "Bearer " + anonKey)
-        .build();
+    this.jpaScheduler = jpaScheduler;
   }
 
   public Mono<Map<String, Object>> signIn(String email, String password) {
-    return webClient.post()
-        .uri(uriBuilder -> uriBuilder.path("/auth/v1/token")
-            .queryParam("grant_type", "password")
-            .build())
+    return authGuard.protect(webClient.post()
+        // URI como plantilla: es el tag uri de http.client.requests
+        .uri("/auth/v1/token?grant_type={grantType}", "password")
         .contentType(MediaType.APPLICATION_JSON)
         .bodyValue(Map.of("email", email, "password", password))
         .retrieve()
         .onStatus(status -> status.is4xxClientError() || status.is5xxServerError(),
-            clientResponse -> Mono.error(new RuntimeException("Error durante la petición de autenticación")))
+            clientResponse -> Mono.error(new SupabaseApiException(clientResponse.statusCode().value(),
+                "Error durante la petición de autenticación")))
         .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {
-        });
+        }));
   }
 
+  /**
+   * Login con credenciales de SIU. Tras el sign-in remoto: si el usuario está en la caché local
+   * se responde sin tocar ninguna base; si no, las búsquedas en Planifika y en SIU corren a la
+   * vez en jpaScheduler y la de SIU solo se usa cuando hay que crear el usuario en Planifika.
+   */
   public Mono<Map<String, Object>> externalLogin(String email, String password) {
     return signIn(email, password)
         .flatMap(authResponse -> {
           UUID supabaseUserId = UUID.fromString((String) ((Map<String, Object>) authResponse.get("user")).get("id"));
+          return resolvePlanifikaUser(supabaseUserId)
+              .map(user -> loginResult(user, authResponse));
+        });
+  }
 
-          try {
-            UserPlanifika user = userService.findBySupabaseId(supabaseUserId);
-            
-            // Verificar si el usuario tiene datos incorrectos y corregirlos
-            boolean needsUpdate = false;
-            if (user.getIdUser() == null || user.getIdUser() == 0) {
-              System.out.println("⚠️ ADVERTENCIA: Usuario tiene ID inválido: " + user.getIdUser());
-              needsUpdate = true;
-            }
-            if (user.getIdUserType() == null || user.getIdUserType() != 3) {
-              System.out.println("⚠️ ADVERTENCIA: Usuario no tiene idUserType=3. Actual: " + user.getIdUserType());
-              user.setIdUserType(3); // Forzar tipo estudiante
-              needsUpdate = true;
-            }
-            if (user.getIdUserStatus() == null || user.getIdUserStatus() == 0) {
-              System.out.println("⚠️ ADVERTENCIA: Usuario no tiene estado activo. Actual: " + user.getIdUserStatus());
-              user.setIdUserStatus(1); // Forzar estado activo
-              needsUpdate = true;
-            }
-            
-            if (needsUpdate && user.getIdUser() != null && user.getIdUser() > 0) {
-              System.out.println("🔄 Actualizando usuario con ID: " + user.getIdUser());
-              user = userService.save(user);
-            }
-            
-            System.out.println("Usuario encontrado - ID: " + user.getIdUser() + ", Name: " + user.getName() + ", UserType: " + user.getIdUserType() + ", Status: " + user.getIdUserStatus());
-            Map<String, Object> result = new HashMap<>();
-            result.put("user", user);
-            // Para estudiantes (idUserType=3), devolver el SERVICE_KEY en lugar del token de usuario
-            if (user.getIdUserType() != null && user.getIdUserType() == 3) {
-              result.put("access_token", serviceKey);
-              System.out.println("✅ Estudiante detectado (idUserType=3), usando SERVICE_KEY para autenticación");
-              System.out.println("SERVICE_KEY: " + serviceKey.substring(0, 50) + "...");
-            } else {
-              result.put("access_token", (String) authResponse.get("access_token"));
-              System.out.println("⚠️ Usuario NO es estudiante (idUserType=" + user.getIdUserType() + "), usando token de usuario");
-            }
-            return Mono.just(result);
-          } catch (EntityNotFoundException e) {
-            // Si no existe en nuestra base de datos, lo crea
-            System.out.println("⚠️ Usuario no encontrado, creando nuevo usuario: " + supabaseUserId);
-            UserPlanifika newUser = createUserFromExternalSystem(supabaseUserId);
-            System.out.println("✅ Usuario creado - ID: " + newUser.getIdUser() + ", Name: " + newUser.getName() + ", UserType: " + newUser.getIdUserType() + ", Status: " + newUser.getIdUserStatus());
-            Map<String, Object> result = new HashMap<>();
-            result.put("user", newUser);
-            // Para estudiantes nuevos (idUserType=3), devolver el SERVICE_KEY
-            if (newUser.getIdUserType() != null && newUser.getIdUserType() == 3) {
-              result.put("access_token", serviceKey);
-              System.out.println("✅ Nuevo estudiante creado (idUserType=3), usando SERVICE_KEY para autenticación");
-              System.out.println("SERVICE_KEY: " + serviceKey.substring(0, 50) + "...");
-            } else {
-              result.put("access_token", (String) authResponse.get("access_token"));
-              System.out.println("⚠️ Nuevo usuario NO es estudiante (idUserType=" + newUser.getIdUserType() + "), usando token de usuario");
-            }
-            return Mono.just(result);
-          } catch (Exception e) {
-            // Para otros errores (como problemas de conexión), re-lanzamos la excepción
-            System.out.println("ERROR inesperado: " + e.getMessage());
-            return Mono.error(e);
+  private Mono<UserPlanifika> resolvePlanifikaUser(UUID supabaseUserId) {
+    Optional<UserPlanifika> cached = userService.findCachedBySupabaseId(supabaseUserId);
+    if (cached.isPresent()) {
+      return repairIfNeeded(cached.get());
+    }
+
+    Mono<Optional<UserPlanifika>> planifikaLookup = Mono
+        .fromCallable(() -> userService.findOptionalBySupabaseId(supabaseUserId))
+        .subscribeOn(jpaScheduler);
+    // materialize: un error en SIU solo importa si el usuario no existe en Planifika
+    Mono<Signal<UserSIU>> siuLookup = Mono
+        .fromCallable(() -> siuUserService.findBySupabaseId(supabaseUserId))
+        .subscribeOn(jpaScheduler)
+        .materialize();
+
+    return Mono.zip(planifikaLookup, siuLookup)
+        .flatMap(lookups -> {
+          Optional<UserPlanifika> existing = lookups.getT1();
+          if (existing.isPresent()) {
+            return repairIfNeeded(existing.get());
           }
-        });
+          Signal<UserSIU> siu = lookups.getT2();
+          if (siu.isOnError()) {
+            return Mono.error(siu.getThrowable());
+          }
+          return Mono.fromCallable(() -> createUserFromExternalSystem(supabaseUserId, siu.get()))
+              .subscribeOn(jpaScheduler);
+        })
+        .doOnError(e -> log.warn("Error inesperado en login externo de {}: {}", supabaseUserId, e.getMessage()));
+  }
+
+  // Corrige usuarios con tipo o estado incorrectos; solo en ese caso se escribe en la base
+  private Mono<UserPlanifika> repairIfNeeded(UserPlanifika user) {
+    boolean needsUpdate = false;
+    if (user.getIdUser() == null || user.getIdUser() == 0) {
+      log.warn("Usuario {} con iduser inválido: {}", user.getSupabaseUserId(), user.getIdUser());
+      needsUpdate = true;
+    }
+    if (user.getIdUserType() == null || user.getIdUserType() != 3) {
+      log.warn("Usuario {} sin idUserType=3 (actual {}), se corrige", user.getIdUser(), user.getIdUserType());
+      user.setIdUserType(3); // Forzar tipo estudiante
+      needsUpdate = true;
+    }
+    if (user.getIdUserStatus() == null || user.getIdUserStatus() == 0) {
+      log.warn("Usuario {} sin estado activo (actual {}), se corrige", user.getIdUser(), user.getIdUserStatus());
+      user.setIdUserStatus(1); // Forzar estado activo
+      needsUpdate = true;
+    }
+
+    if (needsUpdate && user.getIdUser() != null && user.getIdUser() > 0) {
+      return Mono.fromCallable(() -> userService.save(user)).subscribeOn(jpaScheduler);
+    }
+    return Mono.just(user);
+  }
+
+  private Map<String, Object> loginResult(UserPlanifika user, Map<String, Object> authResponse) {
+    log.info("Login externo de usuario {} (tipo {}, estado {})", user.getIdUser(), user.getIdUserType(),
+        user.getIdUserStatus());
+    Map<String, Object> result = new HashMap<>();
+    result.put("user", user);
+    // Para estudiantes (idUserType=3), devolver el SERVICE_KEY en lugar del token de usuario
+    if (user.getIdUserType() != null && user.getIdUserType() == 3) {
+      result.put("access_token", serviceKey);
+    } else {
+      result.put("access_token", (String) authResponse.get("access_token"));
+    }
+    return result;
   }
 
   // Crear un nuevo usuario a partir de la información obtenida del sistema
   // externo
-  private UserPlanifika createUserFromExternalSystem(UUID supabaseUserId) {
-    UserSIU userSIU = siuUserService.findBySupabaseId(supabaseUserId);
-
+  private UserPlanifika createUserFromExternalSystem(UUID supabaseUserId, UserSIU userSIU) {
     UserPlanifika newUser = new UserPlanifika();
     newUser.setName(userSIU.getName());
     newUser.setPhotoUrl(userSIU.getPhotoUrl());
@@ -136,7 +157,7 @@ public class SIUAuthService {
     
     // El método save() retorna el usuario con el ID generado por la base de datos
     UserPlanifika savedUser = userService.save(newUser);
-    System.out.println("Nuevo usuario creado con ID: " + savedUser.getIdUser());
+    log.info("Usuario {} creado en Planifika desde SIU", savedUser.getIdUser());
     
     return savedUser;
   }
@@ -5,7 +5,7 @@ import java.util.UUID;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import com.planifikausersapi.usersapi.model.UserSIU;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
 
 import com.planifikausersapi.usersapi.repository.siu.SIUUserRepository;
 
@@ -20,7 +20,7 @@ public class SIUUserService {
     this.siuUserRepository = siuUserRepository;
   }
 
-  @Transactional
+  @Transactional(readOnly = true, value = "siuTransactionManager")
   public UserSIU findBySupabaseId(UUID supabaseUserId) {
     return siuUserRepository.findBySupabaseUserId(supabaseUserId)
         .orElseThrow(() -> new EntityNotFoundException(
@@ -0,0 +1,192 @@
+package com.planifikausersapi.usersapi.service;
+
+import com.planifikausersapi.usersapi.dto.UserImportResult;
+import com.planifikausersapi.usersapi.dto.UserImportRow;
+import com.planifikausersapi.usersapi.enums.UserStatusEnum;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import com.planifikausersapi.usersapi.repository.siu.SIUUserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Da de alta por adelantado en Planifika a los estudiantes de SIU, así su primer login externo
+ * es una búsqueda en caché y no una lectura cruzada más un INSERT. Recorre usersiu por keyset
+ * desde la marca de agua (último idusersiu procesado) y manda cada bloque a
+ * {@link UserImportService#importBatch}, que omite a quienes ya existen.
+ *
+ * Solo inserta: usersiu no tiene fecha de modificación y el nombre y la foto se pueden editar
+ * desde Planifika, así que los usuarios existentes no se pisan. Las filas sin supabaseUserId o
+ * sin nombre (la cuenta se vincula después) no frenan la marca: se guardan aparte y se
+ * reintentan al principio de cada corrida. La marca y los pendientes viven en memoria de cada
+ * réplica; tras un reinicio la primera corrida recorre toda la tabla, lo que solo cuesta
+ * lecturas y vuelve a encontrar los pendientes.
+ */
+@Component
+@ConditionalOnProperty(name = "siu.sync.enabled", havingValue = "true")
+public class SIUUserSyncJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SIUUserSyncJob.class);
+
+    private static final int STUDENT_USER_TYPE = 3;
+
+    private record ImportCounts(int created, int failed) {
+    }
+
+    private final SIUUserRepository siuUserRepository;
+    private final UserImportService userImportService;
+    private final int chunkSize;
+
+    private final AtomicInteger watermark = new AtomicInteger();
+    // idusersiu ya pasados por la marca que todavía no tenían cuenta vinculada o nombre
+    private final Set<Integer> incomplete = ConcurrentHashMap.newKeySet();
+    private final Counter created;
+    private final Counter skipped;
+    private final Counter failed;
+
+    public SIUUserSyncJob(SIUUserRepository siuUserRepository,
+            UserImportService userImportService,
+            @Value("${siu.sync.chunk-size:500}") int chunkSize,
+            MeterRegistry meterRegistry) {
+        this.siuUserRepository = siuUserRepository;
+        this.userImportService = userImportService;
+        this.chunkSize = chunkSize;
+
+        this.created = Counter.builder("siu.sync.users").tag("outcome", "created").register(meterRegistry);
+        this.skipped = Counter.builder("siu.sync.users").tag("outcome", "skipped").register(meterRegistry);
+        this.failed = Counter.builder("siu.sync.users").tag("outcome", "failed").register(meterRegistry);
+        Gauge.builder("siu.sync.watermark", watermark, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("siu.sync.incomplete", incomplete, Set::size).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${siu.sync.interval:PT15M}",
+            initialDelayString = "${siu.sync.initial-delay:PT1M}")
+    public void scheduledSync() {
+        try {
+            sync();
+        } catch (Exception e) {
+            log.warn("La sincronización SIU -> Planifika falló; se retoma desde idusersiu {}: {}",
+                    watermark.get(), e.getMessage());
+        }
+    }
+
+    /**
+     * Reintenta las filas incompletas y después procesa los usuarios SIU posteriores a la marca
+     * de agua. La marca avanza bloque a bloque y solo si el bloque se insertó sin fallas.
+     */
+    public synchronized void sync() {
+        int createdInRun = retryIncomplete();
+        while (true) {
+            List<UserSIU> chunk = siuUserRepository.findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(
+                    watermark.get(), Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+
+            ImportCounts counts = importUsers(chunk);
+            createdInRun += counts.created();
+            if (counts.failed() > 0) {
+                log.warn("Sincronización SIU detenida en idusersiu {}: {} filas fallaron", watermark.get(),
+                        counts.failed());
+                return;
+            }
+
+            watermark.set(chunk.get(chunk.size() - 1).getIdUserSIU());
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+        }
+        if (createdInRun > 0) {
+            log.info("Sincronización SIU: {} usuarios creados en Planifika (hasta idusersiu {})", createdInRun,
+                    watermark.get());
+        }
+    }
+
+    private int retryIncomplete() {
+        int createdInRetry = 0;
+        List<Integer> ids = List.copyOf(incomplete);
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Integer> slice = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            List<UserSIU> users = siuUserRepository.findAllById(slice);
+            // Los que ya no están en usersiu no hay que reintentarlos; importUsers vuelve a anotar
+            // los que siguen incompletos o fallan
+            slice.forEach(incomplete::remove);
+            try {
+                createdInRetry += importUsers(users).created();
+            } catch (RuntimeException e) {
+                incomplete.addAll(slice);
+                throw e;
+            }
+        }
+        return createdInRetry;
+    }
+
+    /**
+     * Importa los usuarios completos y anota los incompletos para la próxima corrida. Un
+     * usuario sale de los pendientes cuando se crea o ya existía.
+     */
+    private ImportCounts importUsers(List<UserSIU> users) {
+        List<UserImportRow> rows = new ArrayList<>(users.size());
+        Map<UUID, Integer> idsBySupabaseUser = new HashMap<>();
+        for (UserSIU userSIU : users) {
+            if (userSIU.getSupabaseUserId() != null && userSIU.getName() != null) {
+                rows.add(new UserImportRow(userSIU.getSupabaseUserId(), userSIU.getName(),
+                        userSIU.getPhotoUrl(), UserStatusEnum.ACTIVE.getId(), STUDENT_USER_TYPE, null));
+                idsBySupabaseUser.putIfAbsent(userSIU.getSupabaseUserId(), userSIU.getIdUserSIU());
+            } else {
+                incomplete.add(userSIU.getIdUserSIU());
+            }
+        }
+        if (rows.isEmpty()) {
+            return new ImportCounts(0, 0);
+        }
+
+        int createdRows = 0;
+        int failedRows = 0;
+        for (UserImportResult result : userImportService.importBatch(dedupe(rows))) {
+            switch (result.outcome()) {
+                case CREATED -> {
+                    created.increment();
+                    createdRows++;
+                }
+                case SKIPPED_EXISTING -> skipped.increment();
+                default -> {
+                    failed.increment();
+                    failedRows++;
+                    // Si venía de los pendientes, se vuelve a intentar en la próxima corrida
+                    Integer idUserSIU = idsBySupabaseUser.get(result.supabaseUserId());
+                    if (idUserSIU != null && idUserSIU <= watermark.get()) {
+                        incomplete.add(idUserSIU);
+                    }
+                }
+            }
+        }
+        return new ImportCounts(createdRows, failedRows);
+    }
+
+    // importBatch espera supabaseUserId únicos dentro del lote
+    private static List<UserImportRow> dedupe(List<UserImportRow> rows) {
+        return rows.stream()
+                .collect(Collectors.toMap(UserImportRow::supabaseUserId, row -> row,
+                        (first, second) -> first, LinkedHashMap::new))
+                .values().stream().toList();
+    }
+}
@@ -0,0 +1,141 @@
+package com.planifikausersapi.usersapi.service;
+
+import com.planifikausersapi.usersapi.dto.TicketEvent;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte en memoria los cambios de tickets a los clientes de GET /tickets/stream: una escritura
+ * llega a todos los oyentes sin leer la base. Guarda los últimos replaySize eventos para que un
+ * cliente que reconecta con Last-Event-ID reciba lo que se perdió. Cada suscriptor tiene su
+ * propio buffer acotado; si se llena se le cierra el stream y al reconectar retoma desde su
+ * último id, sin frenar a los demás. Con {@link InvalidationBus} también reparte los cambios
+ * hechos en otras réplicas.
+ */
+@Component
+public class TicketEventHub {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketEventHub.class);
+
+    private final Sinks.Many<TicketEvent> sink;
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Counter overflows;
+    private final InvalidationBus invalidationBus;
+
+    // Arranca en la hora actual: los ids de un proceso anterior quedan atrás y provocan un reset
+    private long lastId = System.currentTimeMillis() * 1000;
+
+    public TicketEventHub(@Value("${tickets.stream.replay-size:256}") int replaySize,
+            @Value("${tickets.stream.subscriber-buffer:64}") int subscriberBuffer,
+            MeterRegistry meterRegistry,
+            ObjectProvider<InvalidationBus> invalidationBus) {
+        this.invalidationBus = invalidationBus.getIfAvailable();
+        this.replaySize = replaySize;
+        this.subscriberBuffer = subscriberBuffer;
+        this.sink = Sinks.many().replay().limit(replaySize);
+        Gauge.builder("tickets.stream.subscribers", subscribers, AtomicInteger::get)
+            .description("Clientes conectados a GET /tickets/stream")
+            .register(meterRegistry);
+        this.overflows = Counter.builder("tickets.stream.overflows")
+            .description("Streams cerrados porque el cliente no consumía a tiempo")
+            .register(meterRegistry);
+
+        if (this.invalidationBus != null) {
+            // Cambios hechos en otra réplica: se reparten acá sin el ticket, que habría que leer
+            this.invalidationBus.subscribe(InvalidationBus.TICKETS_CHANNEL, this::publishRemote);
+        }
+    }
+
+    public synchronized TicketEvent publish(String type, Integer idTickets, TicketResponse ticket) {
+        TicketEvent event = new TicketEvent(++lastId, type, idTickets, ticket);
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isFailure()) {
+            log.warn("No se pudo publicar el evento {} del ticket {}: {}", type, idTickets, result);
+        }
+        return event;
+    }
+
+    /**
+     * Publica al confirmar la transacción actual, así nadie ve un cambio que termina en rollback.
+     * Fuera de una transacción publica enseguida.
+     */
+    public void publishAfterCommit(String type, Integer idTickets, TicketResponse ticket) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(type, idTickets, ticket);
+            notifyReplicas(type, idTickets);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(type, idTickets, ticket);
+                notifyReplicas(type, idTickets);
+            }
+        });
+    }
+
+    /**
+     * Eventos posteriores a lastEventId, o solo los nuevos si es null. Si lastEventId ya salió
+     * del buffer (o es de otro proceso) el primer evento es un reset.
+     */
+    public Flux<TicketEvent> subscribe(Long lastEventId) {
+        return Flux.defer(() -> {
+            long current;
+            synchronized (this) {
+                current = lastId;
+            }
+            Flux<TicketEvent> events;
+            if (lastEventId == null) {
+                events = since(current);
+            } else if (lastEventId <= current && current - lastEventId <= replaySize) {
+                events = since(lastEventId);
+            } else {
+                events = Flux.just(TicketEvent.reset(current)).concatWith(since(current));
+            }
+            return events
+                .doOnSubscribe(s -> subscribers.incrementAndGet())
+                .doFinally(signal -> subscribers.decrementAndGet())
+                // Al desbordar se corta enseguida la suscripción al hub; el cliente recibe lo que
+                // ya estaba en su buffer y después el fin del stream
+                .onBackpressureBuffer(subscriberBuffer, dropped -> overflows.increment(),
+                    BufferOverflowStrategy.ERROR)
+                .onErrorResume(Exceptions::isOverflow, e -> Flux.empty());
+        });
+    }
+
+    private void notifyReplicas(String type, Integer idTickets) {
+        if (invalidationBus != null) {
+            invalidationBus.publish(InvalidationBus.TICKETS_CHANNEL, type + ":" + idTickets);
+        }
+    }
+
+    private void publishRemote(String payload) {
+        int separator = payload.indexOf(':');
+        String type = payload.substring(0, separator);
+        String id = payload.substring(separator + 1);
+        publish(type, "null".equals(id) ? null : Integer.valueOf(id), null);
+    }
+
+    private Flux<TicketEvent> since(long id) {
+        // El sink repite su buffer a cada suscriptor; lo ya visto se descarta acá
+        return sink.asFlux().filter(event -> event.id() > id);
+    }
+}
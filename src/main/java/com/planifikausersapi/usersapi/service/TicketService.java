@@ -1,10 +1,19 @@
 package com.planifikausersapi.usersapi.service;
 
-import com.planifikausersapi.usersapi.model.TicketStatus;
-import com.planifikausersapi.usersapi.model.TicketSupport;
+import com.planifikausersapi.usersapi.dto.TicketBatchItemResult;
+import com.planifikausersapi.usersapi.dto.TicketBatchUpdateRequest;
+import com.planifikausersapi.usersapi.dto.TicketEvent;
+import com.planifikausersapi.usersapi.dto.TicketPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.dto.TicketSeekPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketStatsResponse;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
 import com.planifikausersapi.usersapi.repository.drimsoft.TicketStatusRepository;
 import com.planifikausersapi.usersapi.repository.drimsoft.TicketSupportRepository;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketSupportRepository.TicketCountRow;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,30 +21,50 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class TicketService {
 
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int MAX_SEARCH_PAGE_SIZE = 100;
+    public static final int MAX_SEEK_PAGE_SIZE = 500;
+
     private final TicketSupportRepository ticketSupportRepository;
     private final TicketStatusRepository ticketStatusRepository;
+    private final TicketStatusCache ticketStatusCache;
+    private final TicketStatsCache ticketStatsCache;
+    private final TicketEventHub ticketEventHub;
 
     public TicketService(TicketSupportRepository ticketSupportRepository, 
-                        TicketStatusRepository ticketStatusRepository) {
+                        TicketStatusRepository ticketStatusRepository,
+                        TicketStatusCache ticketStatusCache,
+                        TicketStatsCache ticketStatsCache,
+                        TicketEventHub ticketEventHub) {
         this.ticketSupportRepository = ticketSupportRepository;
         this.ticketStatusRepository = ticketStatusRepository;
+        this.ticketStatusCache = ticketStatusCache;
+        this.ticketStatsCache = ticketStatsCache;
+        this.ticketEventHub = ticketEventHub;
     }
 
     @Transactional("drimsoftTransactionManager")
-    public Map<String, Object> createTicket(Integer idPlanifikaUser, String title, String description) {
-        TicketStatus defaultStatus = ticketStatusRepository.findByName("PENDING")
+    public TicketResponse createTicket(Integer idPlanifikaUser, String title, String description) {
+        TicketStatus defaultStatus = ticketStatusCache.findByName("PENDING")
+            .or(() -> ticketStatusRepository.findByName("PENDING"))
             .orElseGet(() -> {
                 TicketStatus newStatus = new TicketStatus();
                 newStatus.setName("PENDING");
-                return ticketStatusRepository.save(newStatus);
+                TicketStatus savedStatus = ticketStatusRepository.save(newStatus);
+                ticketStatusCache.invalidateAfterCommit();
+                return savedStatus;
             });
 
         TicketSupport ticket = new TicketSupport();
@@ -47,10 +76,13 @@ public class TicketService {
         ticket.setIdDrimsoftUser(null);
 
         TicketSupport savedTicket = ticketSupportRepository.save(ticket);
-        return mapToResponse(savedTicket, defaultStatus);
+        ticketStatsCache.invalidateAfterCommit();
+        TicketResponse response = mapToResponse(savedTicket, defaultStatus);
+        ticketEventHub.publishAfterCommit(TicketEvent.CREATED, response.idTickets(), response);
+        return response;
     }
 
-    public List<Map<String, Object>> getAllTickets() {
+    public List<TicketResponse> getAllTickets() {
         List<TicketSupport> tickets = ticketSupportRepository.findAll();
         return tickets.stream()
             .map(this::mapToResponse)
@@ -58,40 +90,66 @@ public class TicketService {
     }
 
     @Transactional(readOnly = true, value = "drimsoftTransactionManager")
-    public Map<String, Object> getTicketsPaged(int page, int size) {
+    public TicketPageResponse getTicketsPaged(int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "idTickets"));
-        Page<TicketSupport> pageResult = ticketSupportRepository.findAll(pageable);
+        return toPageResponse(ticketSupportRepository.findAll(pageable));
+    }
 
-        List<Map<String, Object>> items = pageResult.getContent()
-            .stream()
+    /**
+     * Modo seek de /tickets/paged: los tickets con id menor que after, del más nuevo al más
+     * viejo. Sin OFFSET ni count(*), así que cuesta lo mismo en cualquier página. El total
+     * exacto es opcional y sale del mismo caché que GET /tickets/stats.
+     */
+    @Transactional(readOnly = true, value = "drimsoftTransactionManager")
+    public TicketSeekPageResponse getTicketsAfter(Integer after, int size, boolean includeTotal) {
+        int pageSize = Math.max(1, Math.min(size, MAX_SEEK_PAGE_SIZE));
+        // Se pide una fila extra solo para saber si hay página siguiente
+        Limit limit = Limit.of(pageSize + 1);
+        List<TicketSupport> rows = after == null
+            ? ticketSupportRepository.findByOrderByIdTicketsDesc(limit)
+            : ticketSupportRepository.findByIdTicketsLessThanOrderByIdTicketsDesc(after, limit);
+
+        boolean hasNext = rows.size() > pageSize;
+        List<TicketSupport> page = hasNext ? rows.subList(0, pageSize) : rows;
+        List<TicketResponse> items = page.stream()
             .map(this::mapToResponse)
             .collect(Collectors.toList());
+        Integer nextCursor = hasNext ? page.get(page.size() - 1).getIdTickets() : null;
+        Long total = includeTotal ? getTicketStats().total() : null;
+        return new TicketSeekPageResponse(items, nextCursor, hasNext, total);
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("items", items);
-        response.put("page", pageResult.getNumber());
-        response.put("size", pageResult.getSize());
-        response.put("totalElements", pageResult.getTotalElements());
-        response.put("totalPages", pageResult.getTotalPages());
-        response.put("hasNext", pageResult.hasNext());
-        response.put("hasPrevious", pageResult.hasPrevious());
-        return response;
+    /**
+     * Tickets cuyo título, descripción o respuesta coinciden con query, del más al menos
+     * relevante. La búsqueda la resuelve el índice GIN de PostgreSQL; solo viaja la página pedida.
+     */
+    @Transactional(readOnly = true, value = "drimsoftTransactionManager")
+    public TicketPageResponse searchTickets(String query, int page, int size) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("El parámetro q no puede estar vacío");
+        }
+        if (page < 0) {
+            throw new IllegalArgumentException("page debe ser mayor o igual a 0");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_SEARCH_PAGE_SIZE));
+        // Sin Sort: el orden por relevancia ya está en la consulta
+        return toPageResponse(ticketSupportRepository.search(query.trim(), PageRequest.of(page, pageSize)));
     }
 
-    public Map<String, Object> getTicketById(Integer id) {
+    public TicketResponse getTicketById(Integer id) {
         TicketSupport ticket = ticketSupportRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Ticket not found with id: " + id));
         return mapToResponse(ticket);
     }
 
-    public List<Map<String, Object>> getTicketsByPlanifikaUser(Integer userId) {
+    public List<TicketResponse> getTicketsByPlanifikaUser(Integer userId) {
         List<TicketSupport> tickets = ticketSupportRepository.findByIdPlanifikaUser(userId);
         return tickets.stream()
             .map(this::mapToResponse)
             .collect(Collectors.toList());
     }
 
-    public List<Map<String, Object>> getTicketsByStatus(Integer statusId) {
+    public List<TicketResponse> getTicketsByStatus(Integer statusId) {
         List<TicketSupport> tickets = ticketSupportRepository.findByIdTicketStatus(statusId);
         return tickets.stream()
             .map(this::mapToResponse)
@@ -99,7 +157,7 @@ public class TicketService {
     }
 
     @Transactional("drimsoftTransactionManager")
-    public Map<String, Object> updateTicket(Integer id, Integer idTicketStatus, String answer, Integer idDrimsoftUser) {
+    public TicketResponse updateTicket(Integer id, Integer idTicketStatus, String answer, Integer idDrimsoftUser) {
         TicketSupport ticket = ticketSupportRepository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Ticket not found with id: " + id));
 
@@ -114,7 +172,73 @@ public class TicketService {
         }
 
         TicketSupport updatedTicket = ticketSupportRepository.save(ticket);
-        return mapToResponse(updatedTicket);
+        ticketStatsCache.invalidateAfterCommit();
+        TicketResponse response = mapToResponse(updatedTicket);
+        ticketEventHub.publishAfterCommit(TicketEvent.UPDATED, id, response);
+        return response;
+    }
+
+    /**
+     * Aplica varias actualizaciones en una sola transacción: una consulta trae todos los
+     * tickets y los UPDATE salen en lotes JDBC al confirmar (hibernate.jdbc.batch_size).
+     * Un id inexistente o un estado desconocido no aborta el lote; se informa en su entrada.
+     */
+    @Transactional("drimsoftTransactionManager")
+    public List<TicketBatchItemResult> updateTickets(List<TicketBatchUpdateRequest> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("Debe enviar al menos una actualización");
+        }
+        if (updates.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("El lote admite como máximo " + MAX_BATCH_SIZE + " tickets");
+        }
+
+        Set<Integer> ids = new HashSet<>();
+        for (TicketBatchUpdateRequest update : updates) {
+            if (update.id() != null) {
+                ids.add(update.id());
+            }
+        }
+        Map<Integer, TicketSupport> ticketsById = new HashMap<>();
+        for (TicketSupport ticket : ticketSupportRepository.findAllById(ids)) {
+            ticketsById.put(ticket.getIdTickets(), ticket);
+        }
+
+        List<TicketBatchItemResult> results = new ArrayList<>(updates.size());
+        for (TicketBatchUpdateRequest update : updates) {
+            if (update.id() == null) {
+                results.add(TicketBatchItemResult.invalid(null, "Falta el id del ticket"));
+                continue;
+            }
+            TicketSupport ticket = ticketsById.get(update.id());
+            if (ticket == null) {
+                results.add(TicketBatchItemResult.notFound(update.id()));
+                continue;
+            }
+
+            if (update.idTicketStatus() != null) {
+                // Un estado creado después del último refresco lo recarga el propio diccionario
+                TicketStatus status = ticketStatusCache.get(update.idTicketStatus());
+                if (status == null) {
+                    results.add(TicketBatchItemResult.invalid(update.id(),
+                        "Ticket status not found with id: " + update.idTicketStatus()));
+                    continue;
+                }
+                ticket.setIdTicketStatus(update.idTicketStatus());
+            }
+            if (update.answer() != null) {
+                ticket.setAnswer(update.answer());
+            }
+            if (update.idDrimsoftUser() != null) {
+                ticket.setIdDrimsoftUser(update.idDrimsoftUser());
+            }
+
+            // Entidades administradas: el dirty checking genera los UPDATE al hacer flush
+            TicketResponse response = mapToResponse(ticket);
+            ticketEventHub.publishAfterCommit(TicketEvent.UPDATED, update.id(), response);
+            results.add(TicketBatchItemResult.updated(response));
+        }
+        ticketStatsCache.invalidateAfterCommit();
+        return results;
     }
 
     @Transactional("drimsoftTransactionManager")
@@ -123,24 +247,73 @@ public class TicketService {
             throw new EntityNotFoundException("Ticket not found with id: " + id);
         }
         ticketSupportRepository.deleteById(id);
+        ticketStatsCache.invalidateAfterCommit();
+        ticketEventHub.publishAfterCommit(TicketEvent.DELETED, id, null);
+    }
+
+    /**
+     * Conteos por estado, por usuario Drimsoft y respondidos/abiertos, calculados con una
+     * consulta agregada y guardados unos segundos en {@link TicketStatsCache}. Sin
+     * @Transactional: un acierto de caché no debe tomar conexión de DrimsoftPool.
+     */
+    public TicketStatsResponse getTicketStats() {
+        return ticketStatsCache.get(this::computeTicketStats);
+    }
+
+    private TicketStatsResponse computeTicketStats() {
+        long total = 0;
+        long answered = 0;
+        List<TicketStatsResponse.StatusCount> byStatus = new ArrayList<>();
+        List<TicketStatsResponse.DrimsoftUserCount> byDrimsoftUser = new ArrayList<>();
+        for (TicketCountRow row : ticketSupportRepository.countGrouped()) {
+            switch (row.getGroupingId()) {
+                case TicketCountRow.BY_STATUS -> {
+                    TicketStatus status = ticketStatusCache.get(row.getIdTicketStatus());
+                    byStatus.add(new TicketStatsResponse.StatusCount(row.getIdTicketStatus(),
+                        status != null ? status.getName() : null, row.getTotal()));
+                }
+                case TicketCountRow.BY_DRIMSOFT_USER -> byDrimsoftUser.add(
+                    new TicketStatsResponse.DrimsoftUserCount(row.getIdDrimsoftUser(), row.getTotal()));
+                case TicketCountRow.BY_ANSWERED -> {
+                    if (Boolean.TRUE.equals(row.getAnswered())) {
+                        answered = row.getTotal();
+                    }
+                }
+                case TicketCountRow.TOTAL -> total = row.getTotal();
+                default -> {
+                }
+            }
+        }
+        byStatus.sort(Comparator.comparing(TicketStatsResponse.StatusCount::idTicketStatus,
+            Comparator.nullsLast(Comparator.naturalOrder())));
+        byDrimsoftUser.sort(Comparator.comparing(TicketStatsResponse.DrimsoftUserCount::idDrimsoftUser,
+            Comparator.nullsLast(Comparator.naturalOrder())));
+        return new TicketStatsResponse(total, total - answered, answered, List.copyOf(byStatus),
+            List.copyOf(byDrimsoftUser));
     }
 
-    private Map<String, Object> mapToResponse(TicketSupport ticket) {
-        TicketStatus status = ticketStatusRepository.findById(ticket.getIdTicketStatus())
-            .orElse(null);
+    private TicketPageResponse toPageResponse(Page<TicketSupport> pageResult) {
+        List<TicketResponse> items = pageResult.getContent()
+            .stream()
+            .map(this::mapToResponse)
+            .collect(Collectors.toList());
+
+        return new TicketPageResponse(
+            items,
+            pageResult.getNumber(),
+            pageResult.getSize(),
+            pageResult.getTotalElements(),
+            pageResult.getTotalPages(),
+            pageResult.hasNext(),
+            pageResult.hasPrevious());
+    }
+
+    private TicketResponse mapToResponse(TicketSupport ticket) {
+        TicketStatus status = ticketStatusCache.get(ticket.getIdTicketStatus());
         return mapToResponse(ticket, status);
     }
 
-    private Map<String, Object> mapToResponse(TicketSupport ticket, TicketStatus status) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("idTickets", ticket.getIdTickets());
-        response.put("idPlanifikaUser", ticket.getIdPlanifikaUser());
-        response.put("idTicketStatus", ticket.getIdTicketStatus());
-        response.put("ticketStatusName", status != null ? status.getName() : null);
-        response.put("title", ticket.getTitle());
-        response.put("description", ticket.getDescription());
-        response.put("answer", ticket.getAnswer());
-        response.put("idDrimsoftUser", ticket.getIdDrimsoftUser());
-        return response;
+    private TicketResponse mapToResponse(TicketSupport ticket, TicketStatus status) {
+        return TicketResponse.from(ticket, status);
     }
 }
@@ -0,0 +1,102 @@
+package com.planifikausersapi.usersapi.service;
+
+import com.planifikausersapi.usersapi.dto.TicketStatsResponse;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.invalidation.InvalidationListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Guarda el último resultado de GET /tickets/stats durante un TTL corto. Cada escritura de
+ * tickets lo invalida al confirmar, así el tablero ve sus propios cambios enseguida y el TTL
+ * solo acota lo que tardan en verse los cambios hechos fuera de esta API (o en otra réplica, si
+ * no hay bus de invalidación).
+ */
+@Component
+public class TicketStatsCache {
+
+    private record Snapshot(TicketStatsResponse stats, long expiresAtNanos) {
+    }
+
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile Snapshot snapshot;
+    // Cada invalidación incrementa la versión; un cálculo que empezó antes no se guarda
+    private final AtomicLong version = new AtomicLong();
+
+    @Autowired
+    public TicketStatsCache(@Value("${tickets.stats-cache.ttl:PT30S}") Duration ttl,
+            ObjectProvider<InvalidationBus> invalidationBus) {
+        this(ttl);
+        // Los cambios de tickets en otras réplicas llegan por el canal que publica TicketEventHub
+        invalidationBus.ifAvailable(bus -> bus.subscribe(InvalidationBus.TICKETS_CHANNEL, new InvalidationListener() {
+            @Override
+            public void onMessage(String payload) {
+                invalidate();
+            }
+
+            @Override
+            public void onResync() {
+                invalidate();
+            }
+        }));
+    }
+
+    TicketStatsCache(Duration ttl) {
+        this(ttl, System::nanoTime);
+    }
+
+    TicketStatsCache(Duration ttl, LongSupplier nanoClock) {
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public TicketStatsResponse get(Supplier<TicketStatsResponse> loader) {
+        Snapshot current = snapshot;
+        if (current != null && nanoClock.getAsLong() - current.expiresAtNanos() < 0) {
+            return current.stats();
+        }
+
+        long versionAtLoad = version.get();
+        TicketStatsResponse stats = loader.get();
+        synchronized (this) {
+            if (version.get() == versionAtLoad) {
+                snapshot = new Snapshot(stats, nanoClock.getAsLong() + ttlNanos);
+            }
+        }
+        return stats;
+    }
+
+    public void invalidate() {
+        synchronized (this) {
+            version.incrementAndGet();
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Invalida ahora y otra vez al confirmar la transacción actual, para descartar lo que otra
+     * petición haya calculado mientras la escritura aún no era visible.
+     */
+    public void invalidateAfterCommit() {
+        invalidate();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.planifikausersapi.usersapi.service;
+
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketStatusRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Diccionario en memoria de {@link TicketStatus}. La tabla ticketstatus es pequeña y casi
+ * estática, así que se carga completa en la primera lectura (no al arrancar: la base Drimsoft
+ * es perezosa) y se refresca periódicamente; los listados de tickets resuelven el nombre del
+ * estado sin ir a la base de datos. Un id que no está en el diccionario (un estado creado
+ * después del último refresco) lo recarga, como mucho una vez por missRefreshInterval.
+ * Las lecturas concurrentes comparten una sola carga en curso en lugar de repetir la consulta.
+ */
+@Component
+public class TicketStatusCache {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketStatusCache.class);
+
+    private final TicketStatusRepository ticketStatusRepository;
+
+    private final long missRefreshIntervalNanos;
+    private final LongSupplier nanoClock;
+
+    private volatile Map<Integer, TicketStatus> statusesById = Map.of();
+    private volatile boolean loaded = false;
+    private volatile long lastRefreshNanos;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<CompletableFuture<Map<Integer, TicketStatus>>> inFlight =
+            new AtomicReference<>();
+
+    @Autowired
+    public TicketStatusCache(TicketStatusRepository ticketStatusRepository,
+            @Value("${tickets.status-cache.miss-refresh-interval:PT10S}") Duration missRefreshInterval) {
+        this(ticketStatusRepository, missRefreshInterval, System::nanoTime);
+    }
+
+    TicketStatusCache(TicketStatusRepository ticketStatusRepository) {
+        this(ticketStatusRepository, Duration.ofSeconds(10), System::nanoTime);
+    }
+
+    TicketStatusCache(TicketStatusRepository ticketStatusRepository, Duration missRefreshInterval,
+            LongSupplier nanoClock) {
+        this.ticketStatusRepository = ticketStatusRepository;
+        this.missRefreshIntervalNanos = missRefreshInterval.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Scheduled(fixedDelayString = "${tickets.status-cache.refresh-interval:PT5M}",
+            initialDelayString = "${tickets.status-cache.refresh-interval:PT5M}")
+    public void scheduledRefresh() {
+        if (!loaded) {
+            // Sin lecturas todavía no hay nada que refrescar; no se arma la EntityManagerFactory de Drimsoft
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el diccionario de estados de ticket: {}", e.getMessage());
+        }
+    }
+
+    public void refresh() {
+        load(() -> true);
+    }
+
+    public TicketStatus get(Integer idTicketStatus) {
+        if (idTicketStatus == null) {
+            return null;
+        }
+        TicketStatus status = snapshot().get(idTicketStatus);
+        if (status == null && refreshOnMiss()) {
+            status = statusesById.get(idTicketStatus);
+        }
+        return status;
+    }
+
+    public Optional<TicketStatus> findByName(String name) {
+        Optional<TicketStatus> status = findInSnapshot(name);
+        if (status.isEmpty() && refreshOnMiss()) {
+            status = findInSnapshot(name);
+        }
+        return status;
+    }
+
+    /**
+     * Marca el diccionario como obsoleto; la siguiente lectura lo recarga completo.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        loaded = false;
+    }
+
+    /**
+     * Invalida cuando la transacción actual confirme, para que otra petición no recargue
+     * el diccionario antes de que el nuevo estado sea visible.
+     */
+    public void invalidateAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate();
+            }
+        });
+    }
+
+    private Optional<TicketStatus> findInSnapshot(String name) {
+        return snapshot().values().stream()
+                .filter(status -> name.equals(status.getName()))
+                .findFirst();
+    }
+
+    /**
+     * Recarga si el último refresco es más viejo que missRefreshInterval; así un id inexistente
+     * repetido no consulta la base en cada lectura. Devuelve si recargó.
+     */
+    private boolean refreshOnMiss() {
+        if (!missRefreshDue()) {
+            return false;
+        }
+        load(this::missRefreshDue);
+        return true;
+    }
+
+    private boolean missRefreshDue() {
+        return nanoClock.getAsLong() - lastRefreshNanos >= missRefreshIntervalNanos;
+    }
+
+    private Map<Integer, TicketStatus> snapshot() {
+        if (!loaded) {
+            return load(() -> !loaded);
+        }
+        return statusesById;
+    }
+
+    /**
+     * Una sola carga a la vez: quien la inicia consulta y el resto espera su resultado sin
+     * tomar un lock. Quien llega con una transacción abierta ya tiene una conexión de un pool
+     * chico; esperar a una carga que quizá necesita esa conexión trabaría el pool, así que
+     * consulta con la suya. needed se vuelve a evaluar antes de consultar, para que quien
+     * llega tras una carga recién terminada no la repita.
+     */
+    private Map<Integer, TicketStatus> load(BooleanSupplier needed) {
+        while (true) {
+            CompletableFuture<Map<Integer, TicketStatus>> current = inFlight.get();
+            if (current != null) {
+                if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                    return await(current);
+                }
+                return needed.getAsBoolean() ? query() : statusesById;
+            }
+            CompletableFuture<Map<Integer, TicketStatus>> mine = new CompletableFuture<>();
+            if (!inFlight.compareAndSet(null, mine)) {
+                continue;
+            }
+            try {
+                Map<Integer, TicketStatus> result = needed.getAsBoolean() ? query() : statusesById;
+                mine.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                mine.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.compareAndSet(mine, null);
+            }
+        }
+    }
+
+    private Map<Integer, TicketStatus> query() {
+        long startedGeneration = generation.get();
+        Map<Integer, TicketStatus> byId = new HashMap<>();
+        for (TicketStatus status : ticketStatusRepository.findAll()) {
+            byId.put(status.getIdTicketStatus(), status);
+        }
+        Map<Integer, TicketStatus> loadedById = Map.copyOf(byId);
+        statusesById = loadedById;
+        lastRefreshNanos = nanoClock.getAsLong();
+        // Un invalidate durante la consulta puede haber llegado después de leer la tabla
+        if (generation.get() == startedGeneration) {
+            loaded = true;
+        }
+        return loadedById;
+    }
+
+    private static Map<Integer, TicketStatus> await(CompletableFuture<Map<Integer, TicketStatus>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
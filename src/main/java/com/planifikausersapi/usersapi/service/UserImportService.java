@@ -0,0 +1,244 @@
+package com.planifikausersapi.usersapi.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planifikausersapi.usersapi.dto.UserImportProgress;
+import com.planifikausersapi.usersapi.dto.UserImportResult;
+import com.planifikausersapi.usersapi.dto.UserImportResult.Outcome;
+import com.planifikausersapi.usersapi.dto.UserImportRow;
+import com.planifikausersapi.usersapi.enums.UserStatusEnum;
+import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Alta masiva de usuarios de Planifika. Procesa la entrada en lotes de batchSize filas; por
+ * cada lote hace una consulta para descartar los supabaseUserId que ya existen, reserva los
+ * iduser de la secuencia en un solo SELECT e inserta con un batch JDBC, todo en una
+ * transacción propia. UserPlanifika usa IDENTITY, que impide a Hibernate agrupar INSERT; por
+ * eso esta ruta reserva los ids por adelantado y escribe con JdbcTemplate.
+ */
+@Service
+public class UserImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String RESERVE_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('userplanifika', 'iduser')) FROM generate_series(1, ?)";
+
+    private static final String IMPORT_LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('userplanifika_import'))";
+
+    private static final String INSERT_SQL = "INSERT INTO userplanifika"
+            + " (iduser, name, photourl, iduserstatus, idusertype, idorganization, supabaseuserid)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private record PendingRow(long row, UserImportRow data) {
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    @Autowired
+    public UserImportService(UserRepository userRepository,
+            @Qualifier("planifikaDataSource") DataSource dataSource,
+            @Qualifier("planifikaTransactionManager") PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${users.import.batch-size:500}") int batchSize) {
+        this(userRepository, new JdbcTemplate(dataSource), new TransactionTemplate(transactionManager),
+                objectMapper, batchSize);
+    }
+
+    UserImportService(UserRepository userRepository, JdbcTemplate jdbcTemplate,
+            TransactionOperations transactionOperations, ObjectMapper objectMapper, int batchSize) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Importa las filas y llama a onBatch con los resultados de cada lote y el avance
+     * acumulado. Devuelve el resumen final.
+     */
+    public UserImportProgress importUsers(Iterator<JsonNode> rows,
+            BiConsumer<List<UserImportResult>, UserImportProgress> onBatch) {
+        Set<UUID> seen = new HashSet<>();
+        long[] counts = new long[5]; // processed, created, skipped, invalid, failed
+        long rowNumber = 0;
+
+        List<UserImportResult> results = new ArrayList<>(batchSize);
+        List<PendingRow> pending = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            rowNumber++;
+            UserImportResult rejected = validate(rowNumber, rows.next(), seen, pending);
+            if (rejected != null) {
+                results.add(rejected);
+            }
+            if (pending.size() == batchSize) {
+                results.addAll(insertBatch(pending));
+                pending.clear();
+            }
+            if (results.size() >= batchSize) {
+                flush(results, counts, onBatch);
+            }
+        }
+        if (!pending.isEmpty()) {
+            results.addAll(insertBatch(pending));
+        }
+        flush(results, counts, onBatch);
+
+        return progress(counts, true);
+    }
+
+    /**
+     * Inserta un lote ya validado (sin supabaseUserId nulos ni repetidos) en una transacción.
+     * Lo usa la sincronización con SIU, que arma las filas desde UserSIU.
+     */
+    public List<UserImportResult> importBatch(List<UserImportRow> rows) {
+        List<PendingRow> pending = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            pending.add(new PendingRow(i + 1, rows.get(i)));
+        }
+        return insertBatch(pending);
+    }
+
+    private UserImportResult validate(long rowNumber, JsonNode node, Set<UUID> seen, List<PendingRow> pending) {
+        UserImportRow row;
+        try {
+            row = objectMapper.treeToValue(node, UserImportRow.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            String reason = e instanceof JsonProcessingException jsonError ? jsonError.getOriginalMessage()
+                    : e.getMessage();
+            return new UserImportResult(rowNumber, null, Outcome.INVALID, null, "Fila inválida: " + reason);
+        }
+        if (row.supabaseUserId() == null) {
+            return new UserImportResult(rowNumber, null, Outcome.INVALID, null, "Falta supabaseUserId");
+        }
+        if (row.name() == null || row.name().isBlank()) {
+            return new UserImportResult(rowNumber, row.supabaseUserId(), Outcome.INVALID, null, "Falta name");
+        }
+        if (!seen.add(row.supabaseUserId())) {
+            return new UserImportResult(rowNumber, row.supabaseUserId(), Outcome.SKIPPED_EXISTING, null,
+                    "supabaseUserId repetido en la entrada");
+        }
+        pending.add(new PendingRow(rowNumber, row));
+        return null;
+    }
+
+    private List<UserImportResult> insertBatch(List<PendingRow> pending) {
+        try {
+            return transactionOperations.execute(status -> insertMissing(pending));
+        } catch (DataIntegrityViolationException e) {
+            // Otro proceso insertó alguno de estos usuarios entre la consulta y el INSERT:
+            // se repite una vez, ahora la consulta los descarta
+            log.warn("Conflicto al insertar un lote de {} usuarios, reintentando: {}", pending.size(),
+                    e.getMostSpecificCause().getMessage());
+            try {
+                return transactionOperations.execute(status -> insertMissing(pending));
+            } catch (DataAccessException retryError) {
+                return failed(pending, retryError);
+            }
+        } catch (DataAccessException e) {
+            return failed(pending, e);
+        }
+    }
+
+    private List<UserImportResult> insertMissing(List<PendingRow> pending) {
+        // Serializa los lotes de importación y de sincronización entre réplicas: sin esto dos
+        // procesos podrían ver el mismo supabaseUserId como ausente e insertarlo dos veces
+        jdbcTemplate.execute(IMPORT_LOCK_SQL);
+        List<UUID> ids = pending.stream().map(p -> p.data().supabaseUserId()).toList();
+        Set<UUID> existing = new HashSet<>(userRepository.findExistingSupabaseUserIds(ids));
+
+        List<PendingRow> toInsert = new ArrayList<>(pending.size());
+        List<UserImportResult> results = new ArrayList<>(pending.size());
+        for (PendingRow row : pending) {
+            if (existing.contains(row.data().supabaseUserId())) {
+                results.add(new UserImportResult(row.row(), row.data().supabaseUserId(), Outcome.SKIPPED_EXISTING,
+                        null, null));
+            } else {
+                toInsert.add(row);
+            }
+        }
+        if (toInsert.isEmpty()) {
+            return results;
+        }
+
+        List<Long> reservedIds = jdbcTemplate.queryForList(RESERVE_IDS_SQL, Long.class, toInsert.size());
+        List<Object[]> params = new ArrayList<>(toInsert.size());
+        for (int i = 0; i < toInsert.size(); i++) {
+            UserImportRow data = toInsert.get(i).data();
+            Integer idUser = Math.toIntExact(reservedIds.get(i));
+            params.add(new Object[] {
+                    idUser,
+                    data.name(),
+                    data.photoUrl(),
+                    data.idUserStatus() != null ? data.idUserStatus() : UserStatusEnum.ACTIVE.getId(),
+                    data.idUserType(),
+                    data.idOrganization(),
+                    data.supabaseUserId() });
+            results.add(new UserImportResult(toInsert.get(i).row(), data.supabaseUserId(), Outcome.CREATED,
+                    idUser, null));
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, params, new int[] {
+                Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.INTEGER, Types.INTEGER,
+                Types.OTHER });
+        return results;
+    }
+
+    private static List<UserImportResult> failed(List<PendingRow> pending, DataAccessException e) {
+        log.error("No se pudo insertar un lote de {} usuarios", pending.size(), e);
+        String message = e.getMostSpecificCause().getMessage();
+        return pending.stream()
+                .map(row -> new UserImportResult(row.row(), row.data().supabaseUserId(), Outcome.FAILED, null,
+                        message))
+                .toList();
+    }
+
+    private static void flush(List<UserImportResult> results, long[] counts,
+            BiConsumer<List<UserImportResult>, UserImportProgress> onBatch) {
+        if (results.isEmpty()) {
+            return;
+        }
+        for (UserImportResult result : results) {
+            counts[0]++;
+            switch (result.outcome()) {
+                case CREATED -> counts[1]++;
+                case SKIPPED_EXISTING -> counts[2]++;
+                case INVALID -> counts[3]++;
+                case FAILED -> counts[4]++;
+            }
+        }
+        onBatch.accept(List.copyOf(results), progress(counts, false));
+        results.clear();
+    }
+
+    private static UserImportProgress progress(long[] counts, boolean done) {
+        return new UserImportProgress(counts[0], counts[1], counts[2], counts[3], counts[4], done);
+    }
+}
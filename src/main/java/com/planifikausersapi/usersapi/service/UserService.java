@@ -1,24 +1,33 @@
 package com.planifikausersapi.usersapi.service;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.planifikausersapi.usersapi.cache.UserPlanifikaCache;
 import com.planifikausersapi.usersapi.enums.UserStatusEnum;
-import com.planifikausersapi.usersapi.model.UserPlanifika;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
 import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+import com.planifikausersapi.usersapi.utils.CursorPage;
 
 import jakarta.persistence.EntityNotFoundException;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class UserService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final UserRepository userRepository;
+    private final UserPlanifikaCache userPlanifikaCache;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserPlanifikaCache userPlanifikaCache) {
         this.userRepository = userRepository;
+        this.userPlanifikaCache = userPlanifikaCache;
     }
 
     @Transactional
@@ -26,28 +35,78 @@ public class UserService {
         return userRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<UserPlanifika> findPage(Integer after, int limit, Integer idOrganization,
+            Integer idUserStatus, Integer idUserType) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Se pide una fila extra solo para saber si hay página siguiente, sin count(*)
+        List<UserPlanifika> rows = userRepository.findPageAfter(after, idOrganization, idUserStatus, idUserType,
+                Limit.of(pageSize + 1));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<UserPlanifika> items = hasNext ? List.copyOf(rows.subList(0, pageSize)) : rows;
+        Integer nextCursor = hasNext ? items.get(items.size() - 1).getIdUser() : null;
+        return new CursorPage<>(items, nextCursor, hasNext);
+    }
+
+    /**
+     * Recorre todos los usuarios que cumplen el filtro en bloques de chunkSize filas por keyset.
+     * Sin @Transactional a propósito: cada bloque se lee con su propio EntityManager y queda
+     * desacoplado en cuanto se entrega, así el heap no crece con el tamaño de la tabla.
+     */
+    public void forEachChunk(Integer idOrganization, Integer idUserStatus, Integer idUserType, int chunkSize,
+            Consumer<List<UserPlanifika>> consumer) {
+        Integer after = null;
+        while (true) {
+            List<UserPlanifika> chunk = userRepository.findPageAfter(after, idOrganization, idUserStatus, idUserType,
+                    Limit.of(chunkSize));
+            if (chunk.isEmpty()) {
+                return;
+            }
+            consumer.accept(chunk);
+            if (chunk.size() < chunkSize) {
+                return;
+            }
+            after = chunk.get(chunk.size() - 1).getIdUser();
+        }
+    }
+
     @Transactional
     public UserPlanifika findById(Integer id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Usuario no encontrado con id: " + id));
     }
 
-    @Transactional
+    // Sin @Transactional: un acierto de caché no debe tomar conexión de PlanifikaPool
     public UserPlanifika findBySupabaseId(UUID supabaseUserId) {
-        return userRepository.findBySupabaseUserId(supabaseUserId)
+        return userPlanifikaCache.get(supabaseUserId, () -> userRepository.findBySupabaseUserId(supabaseUserId))
                 .orElseThrow(() -> new EntityNotFoundException(
                         "Usuario no encontrado con supabaseUserId: " + supabaseUserId));
     }
 
+    // Solo la caché local; no toca la base ni bloquea
+    public Optional<UserPlanifika> findCachedBySupabaseId(UUID supabaseUserId) {
+        return userPlanifikaCache.getIfPresent(supabaseUserId);
+    }
+
+    public Optional<UserPlanifika> findOptionalBySupabaseId(UUID supabaseUserId) {
+        return userPlanifikaCache.get(supabaseUserId, () -> userRepository.findBySupabaseUserId(supabaseUserId));
+    }
+
     @Transactional
     public UserPlanifika save(UserPlanifika user) {
-        return userRepository.save(user);
+        UserPlanifika saved = userRepository.save(user);
+        userPlanifikaCache.evictAfterCommit(saved.getSupabaseUserId());
+        return saved;
     }
 
     @Transactional
     public UserPlanifika update(UserPlanifika user) {
-        findById(user.getIdUser());
-        return userRepository.save(user);
+        UUID previousSupabaseUserId = findById(user.getIdUser()).getSupabaseUserId();
+        UserPlanifika saved = userRepository.save(user);
+        userPlanifikaCache.evictAfterCommit(previousSupabaseUserId);
+        userPlanifikaCache.evictAfterCommit(saved.getSupabaseUserId());
+        return saved;
     }
 
     @Transactional
@@ -70,7 +129,9 @@ public class UserService {
             existingUser.setIdOrganization(updatedUser.getIdOrganization());
         }
 
-        return userRepository.save(existingUser); // Guardar los cambios
+        UserPlanifika saved = userRepository.save(existingUser); // Guardar los cambios
+        userPlanifikaCache.evictAfterCommit(saved.getSupabaseUserId());
+        return saved;
     }
 
     // TODO : Este método se podría eliminar próximamente, ya que el estado se puede
@@ -85,20 +146,26 @@ public class UserService {
             throw new IllegalArgumentException("Estado inválido: " + statusName);
         }
 
-        return userRepository.save(user);
+        UserPlanifika saved = userRepository.save(user);
+        userPlanifikaCache.evictAfterCommit(saved.getSupabaseUserId());
+        return saved;
     }
 
     @Transactional
     public UserPlanifika delete(Integer id) {
         UserPlanifika user = findById(id);
         user.setIdUserStatus(UserStatusEnum.DELETED.getId());
-        return userRepository.save(user);
+        UserPlanifika saved = userRepository.save(user);
+        userPlanifikaCache.evictAfterCommit(saved.getSupabaseUserId());
+        return saved;
     }
 
     @Transactional
     public UserPlanifika updateOrganization(Integer userId, Integer organizationId) {
         UserPlanifika user = findById(userId);
         user.setIdOrganization(organizationId);
-        return userRepository.save(user);
+        UserPlanifika saved = userRepository.save(user);
+        userPlanifikaCache.evictAfterCommit(saved.getSupabaseUserId());
+        return saved;
     }
 }
@@ -0,0 +1,107 @@
+package com.planifikausersapi.usersapi.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Lee un CSV con encabezado registro por registro, sin cargar el archivo en memoria. Soporta
+ * campos entre comillas dobles (con comas, saltos de línea y "" como comilla escapada). Los
+ * campos vacíos se omiten del mapa.
+ */
+public class CsvRecordIterator implements Iterator<Map<String, String>> {
+
+  private final BufferedReader reader;
+  private final List<String> header;
+  private List<String> nextRecord;
+
+  public CsvRecordIterator(Reader reader) {
+    this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    List<String> headerRecord = readRecord();
+    if (headerRecord == null) {
+      throw new IllegalArgumentException("El CSV está vacío");
+    }
+    // Excel suele anteponer un BOM al primer encabezado
+    this.header = headerRecord.stream().map(h -> h.replace("\uFEFF", "").trim()).toList();
+    this.nextRecord = readRecord();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return nextRecord != null;
+  }
+
+  @Override
+  public Map<String, String> next() {
+    if (nextRecord == null) {
+      throw new NoSuchElementException();
+    }
+    Map<String, String> values = new LinkedHashMap<>();
+    for (int i = 0; i < header.size() && i < nextRecord.size(); i++) {
+      String value = nextRecord.get(i).trim();
+      if (!value.isEmpty()) {
+        values.put(header.get(i), value);
+      }
+    }
+    nextRecord = readRecord();
+    return values;
+  }
+
+  private List<String> readRecord() {
+    try {
+      String line = reader.readLine();
+      while (line != null && line.isBlank()) {
+        line = reader.readLine();
+      }
+      if (line == null) {
+        return null;
+      }
+
+      List<String> fields = new ArrayList<>();
+      StringBuilder field = new StringBuilder();
+      boolean quoted = false;
+      while (true) {
+        for (int i = 0; i < line.length(); i++) {
+          char c = line.charAt(i);
+          if (quoted) {
+            if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+              field.append('"');
+              i++;
+            } else if (c == '"') {
+              quoted = false;
+            } else {
+              field.append(c);
+            }
+          } else if (c == '"') {
+            quoted = true;
+          } else if (c == ',') {
+            fields.add(field.toString());
+            field.setLength(0);
+          } else {
+            field.append(c);
+          }
+        }
+        if (!quoted) {
+          break;
+        }
+        // Campo entre comillas que sigue en la línea siguiente
+        line = reader.readLine();
+        if (line == null) {
+          throw new IllegalArgumentException("CSV inválido: comillas sin cerrar");
+        }
+        field.append('\n');
+      }
+      fields.add(field.toString());
+      return fields;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.planifikausersapi.usersapi.utils;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+  private List<T> items;
+  private Integer nextCursor;
+  private boolean hasNext;
+}
@@ -0,0 +1,41 @@
+package com.planifikausersapi.usersapi.cache;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación en proceso de {@link SharedCacheTier} para tests: hace de nivel compartido
+ * dentro de una sola JVM, sin límite de tamaño y borrando lo vencido solo al leerlo.
+ */
+public class InMemorySharedCacheTier<K, V> implements SharedCacheTier<K, V> {
+
+    private record Entry<V>(V value, long expiresAtNanos) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    @Override
+    public Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (System.nanoTime() - entry.expiresAtNanos() >= 0) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        return Optional.of(entry.value());
+    }
+
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    @Override
+    public void evict(K key) {
+        entries.remove(key);
+    }
+}
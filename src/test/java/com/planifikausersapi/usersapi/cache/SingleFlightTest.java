@@ -0,0 +1,123 @@
+package com.planifikausersapi.usersapi.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Las llamadas que llegan mientras hay una carga en curso deben esperar esa misma carga; el
+ * resultado se reutiliza solo durante el ttl pedido y nunca se guardan errores.
+ */
+class SingleFlightTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final AtomicInteger loads = new AtomicInteger();
+	private SimpleMeterRegistry meterRegistry;
+	private SingleFlight<String, String> singleFlight;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		singleFlight = new SingleFlight<>("test", 100, meterRegistry);
+	}
+
+	@Test
+	void concurrentCallsShareOneLoad() {
+		Sinks.One<String> upstream = Sinks.one();
+		Mono<String> first = singleFlight.execute("sub", Duration.ZERO, () -> load(upstream.asMono()));
+		Mono<String> second = singleFlight.execute("sub", Duration.ZERO, () -> load(upstream.asMono()));
+		Mono<String> third = singleFlight.execute("sub", Duration.ZERO, () -> load(upstream.asMono()));
+
+		Mono<String> all = Mono.zip(first, second, third).map(t -> t.getT1() + t.getT2() + t.getT3());
+		AtomicInteger done = new AtomicInteger();
+		all.subscribe(result -> done.incrementAndGet());
+		upstream.tryEmitValue("a");
+
+		assertThat(done).hasValue(1);
+		assertThat(loads).hasValue(1);
+		assertThat(count("leader")).isEqualTo(1);
+		assertThat(count("coalesced")).isEqualTo(2);
+	}
+
+	@Test
+	void withoutTtlTheNextCallLoadsAgain() {
+		singleFlight.execute("sub", Duration.ZERO, () -> load(Mono.just("a"))).block(TIMEOUT);
+		singleFlight.execute("sub", Duration.ZERO, () -> load(Mono.just("b"))).block(TIMEOUT);
+
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void resultIsReusedWithinTtlUntilInvalidated() {
+		singleFlight.execute("sub", Duration.ofMinutes(1), () -> load(Mono.just("a"))).block(TIMEOUT);
+
+		assertThat(singleFlight.execute("sub", Duration.ofMinutes(1), () -> load(Mono.just("b"))).block(TIMEOUT))
+				.isEqualTo("a");
+		assertThat(count("cached")).isEqualTo(1);
+
+		singleFlight.invalidate("sub");
+		assertThat(singleFlight.execute("sub", Duration.ofMinutes(1), () -> load(Mono.just("c"))).block(TIMEOUT))
+				.isEqualTo("c");
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void invalidateIfDropsEveryMatchingKey() {
+		singleFlight.execute("sub|a", Duration.ofMinutes(1), () -> load(Mono.just("a"))).block(TIMEOUT);
+		singleFlight.execute("sub|b", Duration.ofMinutes(1), () -> load(Mono.just("b"))).block(TIMEOUT);
+		singleFlight.execute("other|a", Duration.ofMinutes(1), () -> load(Mono.just("o"))).block(TIMEOUT);
+
+		singleFlight.invalidateIf(key -> key.startsWith("sub|"));
+
+		singleFlight.execute("sub|a", Duration.ofMinutes(1), () -> load(Mono.just("a2"))).block(TIMEOUT);
+		singleFlight.execute("sub|b", Duration.ofMinutes(1), () -> load(Mono.just("b2"))).block(TIMEOUT);
+		singleFlight.execute("other|a", Duration.ofMinutes(1), () -> load(Mono.just("o2"))).block(TIMEOUT);
+		assertThat(loads).hasValue(5);
+		assertThat(count("cached")).isEqualTo(1);
+	}
+
+	@Test
+	void errorsAreNotCached() {
+		Mono<String> failing = singleFlight.execute("sub", Duration.ofMinutes(1),
+				() -> load(Mono.error(new IllegalStateException("caído"))));
+		assertThatThrownBy(() -> failing.block(TIMEOUT)).isInstanceOf(IllegalStateException.class);
+
+		assertThat(singleFlight.execute("sub", Duration.ofMinutes(1), () -> load(Mono.just("a"))).block(TIMEOUT))
+				.isEqualTo("a");
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void loadStartedBeforeInvalidateIsNotStored() {
+		Sinks.One<String> upstream = Sinks.one();
+		AtomicInteger done = new AtomicInteger();
+		singleFlight.execute("sub", Duration.ofMinutes(1), () -> load(upstream.asMono()))
+				.subscribe(result -> done.incrementAndGet());
+
+		singleFlight.invalidate("sub");
+		upstream.tryEmitValue("viejo");
+
+		assertThat(done).hasValue(1);
+		assertThat(singleFlight.execute("sub", Duration.ofMinutes(1), () -> load(Mono.just("nuevo"))).block(TIMEOUT))
+				.isEqualTo("nuevo");
+	}
+
+	private Mono<String> load(Mono<String> result) {
+		loads.incrementAndGet();
+		return result;
+	}
+
+	private double count(String result) {
+		return meterRegistry.get("singleflight.calls").tag("result", result).counter().count();
+	}
+}
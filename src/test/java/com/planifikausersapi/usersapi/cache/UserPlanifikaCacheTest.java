@@ -0,0 +1,197 @@
+package com.planifikausersapi.usersapi.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.planifikausersapi.usersapi.invalidation.InMemoryInvalidationTransport;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UserPlanifikaCacheTest {
+
+	private final UUID supabaseUserId = UUID.randomUUID();
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private SimpleMeterRegistry meterRegistry;
+	private InMemorySharedCacheTier<UUID, UserPlanifika> sharedTier;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		sharedTier = new InMemorySharedCacheTier<>();
+	}
+
+	@Test
+	void secondLookupIsServedLocally() {
+		UserPlanifikaCache cache = newCache(100, sharedTier);
+
+		cache.get(supabaseUserId, this::load);
+		cache.get(supabaseUserId, this::load);
+
+		assertThat(loads).hasValue(1);
+		assertThat(count("hit", "local")).isEqualTo(1);
+		assertThat(count("miss", "none")).isEqualTo(1);
+	}
+
+	@Test
+	void replicaReadsThroughSharedTier() {
+		newCache(100, sharedTier).get(supabaseUserId, this::load);
+		UserPlanifikaCache otherReplica = newCache(100, sharedTier);
+
+		assertThat(otherReplica.get(supabaseUserId, this::load)).isPresent();
+		assertThat(loads).hasValue(1);
+		assertThat(count("hit", "shared")).isEqualTo(1);
+	}
+
+	@Test
+	void evictRemovesBothTiers() {
+		UserPlanifikaCache cache = newCache(100, sharedTier);
+		cache.get(supabaseUserId, this::load);
+
+		cache.evict(supabaseUserId);
+		cache.get(supabaseUserId, this::load);
+
+		assertThat(loads).hasValue(2);
+	}
+
+	@Test
+	void evictDuringASlowSharedWriteIsNotUndone() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		SharedCacheTier<UUID, UserPlanifika> slowTier = new SharedCacheTier<>() {
+			@Override
+			public Optional<UserPlanifika> get(UUID key) {
+				return sharedTier.get(key);
+			}
+
+			@Override
+			public void put(UUID key, UserPlanifika value, Duration ttl) {
+				writing.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				sharedTier.put(key, value, ttl);
+			}
+
+			@Override
+			public void evict(UUID key) {
+				sharedTier.evict(key);
+			}
+		};
+		UserPlanifikaCache cache = newCache(100, slowTier);
+
+		CompletableFuture<Void> load = CompletableFuture.runAsync(() -> cache.get(supabaseUserId, this::load));
+		assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+		CompletableFuture<Void> evict = CompletableFuture.runAsync(() -> cache.evict(supabaseUserId));
+
+		// El evict espera a que termine la escritura en curso en vez de adelantarse
+		assertThatThrownBy(() -> evict.get(100, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+		release.countDown();
+		load.get(5, TimeUnit.SECONDS);
+		evict.get(5, TimeUnit.SECONDS);
+
+		assertThat(sharedTier.get(supabaseUserId)).isEmpty();
+	}
+
+	@Test
+	void returnedCopiesDoNotLeakMutations() {
+		UserPlanifikaCache cache = newCache(100, null);
+		cache.get(supabaseUserId, this::load).orElseThrow().setName("modificado");
+
+		assertThat(cache.get(supabaseUserId, this::load).orElseThrow().getName()).isEqualTo("Ana");
+	}
+
+	@Test
+	void sizeBoundEvictsLeastRecentlyUsed() {
+		UserPlanifikaCache cache = newCache(1, null);
+		cache.get(supabaseUserId, this::load);
+		cache.get(UUID.randomUUID(), this::load);
+
+		cache.get(supabaseUserId, this::load);
+
+		assertThat(loads).hasValue(3);
+		assertThat(meterRegistry.get("cache.evictions").counter().count()).isGreaterThanOrEqualTo(1);
+	}
+
+	@Test
+	void writeOnOneReplicaDropsTheLocalCopyOnTheOthers() {
+		InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+		UserPlanifikaCache writer = newCache(100, null, newBus(transport));
+		UserPlanifikaCache reader = newCache(100, null, newBus(transport));
+		writer.get(supabaseUserId, this::load);
+		reader.get(supabaseUserId, this::load);
+
+		writer.evictAfterCommit(supabaseUserId);
+		reader.get(supabaseUserId, this::load);
+
+		assertThat(loads).hasValue(3);
+		assertThat(reader.getIfPresent(supabaseUserId)).isPresent();
+	}
+
+	@Test
+	void reconnectClearsTheLocalTier() {
+		InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+		UserPlanifikaCache cache = newCache(100, null, newBus(transport));
+		cache.get(supabaseUserId, this::load);
+
+		transport.resync();
+
+		assertThat(cache.getIfPresent(supabaseUserId)).isEmpty();
+	}
+
+	private UserPlanifikaCache newCache(int maxSize, SharedCacheTier<UUID, UserPlanifika> tier) {
+		return newCache(maxSize, tier, null);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private UserPlanifikaCache newCache(int maxSize, SharedCacheTier<UUID, UserPlanifika> tier,
+			InvalidationBus invalidationBus) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		if (tier != null) {
+			beanFactory.addBean("sharedTier", tier);
+		}
+		if (invalidationBus != null) {
+			beanFactory.addBean("invalidationBus", invalidationBus);
+		}
+		ObjectProvider<SharedCacheTier<UUID, UserPlanifika>> provider =
+				(ObjectProvider) beanFactory.getBeanProvider(SharedCacheTier.class);
+		return new UserPlanifikaCache(maxSize, Duration.ofMinutes(5), provider,
+				beanFactory.getBeanProvider(InvalidationBus.class), meterRegistry);
+	}
+
+	private InvalidationBus newBus(InMemoryInvalidationTransport transport) {
+		return new InvalidationBus(Map.of(InvalidationBus.USERS_CHANNEL, transport), meterRegistry);
+	}
+
+	private Optional<UserPlanifika> load() {
+		loads.incrementAndGet();
+		UserPlanifika user = new UserPlanifika();
+		user.setIdUser(loads.get());
+		user.setName("Ana");
+		user.setSupabaseUserId(supabaseUserId);
+		return Optional.of(user);
+	}
+
+	private double count(String result, String tier) {
+		return meterRegistry.get("cache.gets").tag("result", result).tag("tier", tier).counter().count();
+	}
+}
@@ -0,0 +1,82 @@
+package com.planifikausersapi.usersapi.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.service.UserImportService;
+import com.planifikausersapi.usersapi.service.UserService;
+
+/**
+ * GET /users rechaza un cursor que no es un id y GET /users/stream escribe un usuario por
+ * línea a medida que llegan los bloques.
+ */
+class UserControllerTest {
+
+	private UserService userService;
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		userService = mock(UserService.class);
+		mockMvc = MockMvcBuilders
+				.standaloneSetup(new UserController(userService, mock(UserImportService.class), new ObjectMapper()))
+				.build();
+	}
+
+	@Test
+	void nonNumericCursorIsRejected() throws Exception {
+		mockMvc.perform(get("/users").param("after", "abc")).andExpect(status().isBadRequest());
+
+		verifyNoInteractions(userService);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void streamWritesOneLinePerUserAcrossChunks() throws Exception {
+		doAnswer(inv -> {
+			Consumer<List<UserPlanifika>> consumer = inv.getArgument(4);
+			consumer.accept(List.of(user(1), user(2)));
+			consumer.accept(List.of(user(3)));
+			return null;
+		}).when(userService).forEachChunk(isNull(), isNull(), isNull(), anyInt(), any(Consumer.class));
+
+		MvcResult started = mockMvc.perform(get("/users/stream"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		List<String> lines = body.lines().toList();
+		assertThat(lines).hasSize(3);
+		assertThat(lines.get(0)).contains("\"idUser\":1");
+		assertThat(lines.get(2)).contains("\"idUser\":3");
+	}
+
+	private static UserPlanifika user(int id) {
+		UserPlanifika user = new UserPlanifika();
+		user.setIdUser(id);
+		user.setName("Usuario " + id);
+		return user;
+	}
+}
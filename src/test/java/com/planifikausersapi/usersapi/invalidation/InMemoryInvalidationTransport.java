@@ -0,0 +1,46 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Implementación en proceso de {@link InvalidationTransport} para tests: entrega cada aviso en
+ * el mismo hilo a todos los que escuchan el canal. Varios {@link InvalidationBus} sobre una
+ * misma instancia simulan varias réplicas; con un solo bus no hace nada, porque el bus descarta
+ * sus propios avisos.
+ */
+public class InMemoryInvalidationTransport implements InvalidationTransport {
+
+    private record Registration(Set<String> channels, Receiver receiver) {
+    }
+
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void listen(Collection<String> channels, Receiver receiver) {
+        registrations.add(new Registration(Set.copyOf(channels), receiver));
+    }
+
+    @Override
+    public void send(String channel, String payload) {
+        for (Registration registration : registrations) {
+            if (registration.channels().contains(channel)) {
+                registration.receiver().onMessage(channel, payload);
+            }
+        }
+    }
+
+    /** Simula una reconexión: todos los receptores deben descartar su estado. */
+    public void resync() {
+        for (Registration registration : registrations) {
+            registration.receiver().onResync();
+        }
+    }
+
+    @Override
+    public void close() {
+        registrations.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Dos buses sobre el mismo transporte en memoria hacen de dos réplicas: cada aviso llega solo
+ * a la otra, por su canal, y una reconexión afecta solo a los canales de ese transporte.
+ */
+class InvalidationBusTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private InMemoryInvalidationTransport planifika;
+	private InMemoryInvalidationTransport drimsoft;
+	private InvalidationBus replicaA;
+	private InvalidationBus replicaB;
+
+	@BeforeEach
+	void setUp() {
+		planifika = new InMemoryInvalidationTransport();
+		drimsoft = new InMemoryInvalidationTransport();
+		replicaA = newBus();
+		replicaB = newBus();
+	}
+
+	@Test
+	void messagesReachOtherReplicasButNotTheSender() {
+		List<String> onA = new ArrayList<>();
+		List<String> onB = new ArrayList<>();
+		replicaA.subscribe(InvalidationBus.USERS_CHANNEL, onA::add);
+		replicaB.subscribe(InvalidationBus.USERS_CHANNEL, onB::add);
+
+		replicaA.publish(InvalidationBus.USERS_CHANNEL, "user-1");
+
+		assertThat(onA).isEmpty();
+		assertThat(onB).containsExactly("user-1");
+		assertThat(meterRegistry.get("invalidation.messages").tag("direction", "received").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void channelsAreKeptApart() {
+		List<String> users = new ArrayList<>();
+		List<String> tickets = new ArrayList<>();
+		replicaB.subscribe(InvalidationBus.USERS_CHANNEL, users::add);
+		replicaB.subscribe(InvalidationBus.TICKETS_CHANNEL, tickets::add);
+
+		replicaA.publish(InvalidationBus.TICKETS_CHANNEL, "updated:7");
+
+		assertThat(users).isEmpty();
+		assertThat(tickets).containsExactly("updated:7");
+	}
+
+	@Test
+	void failingListenerDoesNotStopTheOthers() {
+		List<String> received = new ArrayList<>();
+		replicaB.subscribe(InvalidationBus.USERS_CHANNEL, payload -> {
+			throw new IllegalStateException("falla");
+		});
+		replicaB.subscribe(InvalidationBus.USERS_CHANNEL, received::add);
+
+		replicaA.publish(InvalidationBus.USERS_CHANNEL, "user-1");
+
+		assertThat(received).containsExactly("user-1");
+	}
+
+	@Test
+	void resyncOnlyReachesChannelsOfThatTransport() {
+		List<String> resynced = new ArrayList<>();
+		replicaB.subscribe(InvalidationBus.USERS_CHANNEL, listener("users", resynced));
+		replicaB.subscribe(InvalidationBus.TICKETS_CHANNEL, listener("tickets", resynced));
+
+		drimsoft.resync();
+
+		// Una vez por réplica suscrita: solo replicaB escucha
+		assertThat(resynced).containsExactly("tickets");
+	}
+
+	@Test
+	void unknownChannelIsRejected() {
+		assertThatThrownBy(() -> replicaA.publish("otro_canal", "x")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private InvalidationBus newBus() {
+		return new InvalidationBus(Map.of(
+				InvalidationBus.USERS_CHANNEL, planifika,
+				InvalidationBus.TICKETS_CHANNEL, drimsoft), meterRegistry);
+	}
+
+	private static InvalidationListener listener(String name, List<String> resynced) {
+		return new InvalidationListener() {
+			@Override
+			public void onMessage(String payload) {
+			}
+
+			@Override
+			public void onResync() {
+				resynced.add(name);
+			}
+		};
+	}
+}
@@ -0,0 +1,181 @@
+package com.planifikausersapi.usersapi.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Ejercita el hilo de LISTEN contra conexiones simuladas: los avisos llegan al receptor, los
+ * envíos salen por pg_notify en la misma conexión y, tras perderla, se reconecta, vuelve a
+ * hacer LISTEN, pide descartar el estado local y envía lo que quedó pendiente.
+ */
+class PostgresInvalidationTransportTest {
+
+	private static final long WAIT_MILLIS = 5_000;
+	private static final List<String> CHANNELS = List.of("planifika_users", "drimsoft_tickets");
+
+	private final BlockingQueue<FakeConnection> connections = new LinkedBlockingQueue<>();
+	private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+	private final AtomicInteger resyncs = new AtomicInteger();
+	private final AtomicInteger opened = new AtomicInteger();
+
+	private final PostgresInvalidationTransport transport = new PostgresInvalidationTransport("test", () -> {
+		FakeConnection next = connections.poll();
+		if (next == null) {
+			throw new SQLException("sin conexión");
+		}
+		opened.incrementAndGet();
+		return next.connection;
+	}, Duration.ofMillis(10));
+
+	@AfterEach
+	void tearDown() {
+		transport.close();
+	}
+
+	@Test
+	void listensOnEveryChannelAndDispatchesNotifications() throws Exception {
+		FakeConnection connection = new FakeConnection();
+		connections.add(connection);
+
+		transport.listen(CHANNELS, receiver());
+		connection.deliver("planifika_users", "node|user-1");
+
+		assertThat(received.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS)).isEqualTo("planifika_users:node|user-1");
+		verify(connection.statement, timeout(WAIT_MILLIS)).execute("LISTEN planifika_users");
+		verify(connection.statement, timeout(WAIT_MILLIS)).execute("LISTEN drimsoft_tickets");
+		assertThat(resyncs).hasValue(0);
+	}
+
+	@Test
+	void sendGoesOutThroughPgNotifyOnTheListenConnection() throws Exception {
+		FakeConnection connection = new FakeConnection();
+		connections.add(connection);
+
+		transport.listen(CHANNELS, receiver());
+		transport.send("drimsoft_tickets", "node|updated:7");
+
+		verify(connection.pgNotify, timeout(WAIT_MILLIS)).setString(1, "drimsoft_tickets");
+		verify(connection.pgNotify, timeout(WAIT_MILLIS)).setString(2, "node|updated:7");
+		verify(connection.pgNotify, timeout(WAIT_MILLIS)).execute();
+	}
+
+	@Test
+	void reconnectsListensAgainAndAsksForResync() throws Exception {
+		FakeConnection lost = new FakeConnection();
+		FakeConnection replacement = new FakeConnection();
+		connections.add(lost);
+		connections.add(replacement);
+
+		transport.listen(CHANNELS, receiver());
+		lost.drop();
+		replacement.deliver("drimsoft_tickets", "node|deleted:3");
+
+		// La primera espera de reconexión es de un segundo
+		assertThat(received.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS)).isEqualTo("drimsoft_tickets:node|deleted:3");
+		assertThat(resyncs).hasValue(1);
+		assertThat(opened).hasValue(2);
+		verify(lost.connection, timeout(WAIT_MILLIS)).close();
+		verify(replacement.statement, timeout(WAIT_MILLIS)).execute("LISTEN planifika_users");
+	}
+
+	@Test
+	void noticesLeftUnsentByAFailedFlushGoOutAfterReconnecting() throws Exception {
+		FakeConnection lost = new FakeConnection();
+		FakeConnection replacement = new FakeConnection();
+		when(lost.pgNotify.execute()).thenReturn(true).thenThrow(new SQLException("conexión cerrada por el servidor"));
+		connections.add(lost);
+		connections.add(replacement);
+		transport.send("planifika_users", "node|user-1");
+		transport.send("planifika_users", "node|user-2");
+		transport.send("drimsoft_tickets", "node|updated:7");
+
+		transport.listen(CHANNELS, receiver());
+
+		verify(replacement.pgNotify, timeout(WAIT_MILLIS).times(2)).execute();
+		verify(lost.pgNotify).setString(2, "node|user-1");
+		verify(lost.pgNotify).setString(2, "node|user-2");
+		verify(lost.pgNotify, never()).setString(2, "node|updated:7");
+		verify(replacement.pgNotify, never()).setString(2, "node|user-1");
+		verify(replacement.pgNotify).setString(2, "node|user-2");
+		verify(replacement.pgNotify).setString(2, "node|updated:7");
+	}
+
+	@Test
+	void rejectsChannelsThatAreNotPlainIdentifiers() {
+		assertThatThrownBy(() -> transport.listen(List.of("users; DROP TABLE x"), receiver()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(opened).hasValue(0);
+	}
+
+	private InvalidationTransport.Receiver receiver() {
+		return new InvalidationTransport.Receiver() {
+			@Override
+			public void onMessage(String channel, String payload) {
+				received.add(channel + ":" + payload);
+			}
+
+			@Override
+			public void onResync() {
+				resyncs.incrementAndGet();
+			}
+		};
+	}
+
+	/** Conexión simulada: getNotifications devuelve lo encolado o falla si se pidió cortarla. */
+	private static final class FakeConnection {
+
+		private static final Object DROP = new Object();
+
+		final Connection connection = mock(Connection.class);
+		final Statement statement = mock(Statement.class);
+		final PreparedStatement pgNotify = mock(PreparedStatement.class);
+		final PGConnection pgConnection = mock(PGConnection.class);
+		private final BlockingQueue<Object> pending = new LinkedBlockingQueue<>();
+
+		FakeConnection() throws SQLException {
+			when(connection.createStatement()).thenReturn(statement);
+			when(connection.prepareStatement("SELECT pg_notify(?, ?)")).thenReturn(pgNotify);
+			when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+			when(pgConnection.getNotifications(anyInt())).thenAnswer(inv -> {
+				Object next = pending.poll(inv.<Integer>getArgument(0), TimeUnit.MILLISECONDS);
+				if (next == DROP) {
+					throw new SQLException("conexión cerrada por el servidor");
+				}
+				return next;
+			});
+		}
+
+		void deliver(String channel, String payload) {
+			PGNotification notification = mock(PGNotification.class);
+			when(notification.getName()).thenReturn(channel);
+			when(notification.getParameter()).thenReturn(payload);
+			pending.add(new PGNotification[] { notification });
+		}
+
+		void drop() {
+			pending.add(DROP);
+		}
+	}
+}
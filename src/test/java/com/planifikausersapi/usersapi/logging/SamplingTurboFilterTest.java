@@ -0,0 +1,55 @@
+package com.planifikausersapi.usersapi.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * El muestreo solo debe recortar líneas INFO de la categoría configurada.
+ */
+class SamplingTurboFilterTest {
+
+	private final LoggerContext loggerContext = new LoggerContext();
+	private SamplingTurboFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		filter = new SamplingTurboFilter();
+		filter.setContext(loggerContext);
+		filter.setLoggerPrefix("com.example.login");
+		filter.setKeepOneIn(4);
+		filter.start();
+	}
+
+	@Test
+	void keepsOneInNInfoEventsOfTheSampledCategory() {
+		Logger logger = loggerContext.getLogger("com.example.login.LoginController");
+
+		int kept = 0;
+		for (int i = 0; i < 100; i++) {
+			if (filter.decide(null, logger, Level.INFO, "login {}", null, null) == FilterReply.NEUTRAL) {
+				kept++;
+			}
+		}
+
+		assertThat(kept).isEqualTo(25);
+	}
+
+	@Test
+	void neverDropsWarningsOtherCategoriesOrLevelChecks() {
+		Logger sampled = loggerContext.getLogger("com.example.login.LoginController");
+		Logger other = loggerContext.getLogger("com.example.tickets.TicketService");
+
+		for (int i = 0; i < 10; i++) {
+			assertThat(filter.decide(null, sampled, Level.WARN, "falló {}", null, null)).isEqualTo(FilterReply.NEUTRAL);
+			assertThat(filter.decide(null, other, Level.INFO, "ticket {}", null, null)).isEqualTo(FilterReply.NEUTRAL);
+			assertThat(filter.decide(null, sampled, Level.INFO, null, null, null)).isEqualTo(FilterReply.NEUTRAL);
+		}
+	}
+}
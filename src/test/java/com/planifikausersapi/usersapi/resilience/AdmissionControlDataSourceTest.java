@@ -0,0 +1,112 @@
+package com.planifikausersapi.usersapi.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * El semáforo debe limitar las conexiones abiertas, devolver el permiso al cerrar y rechazar
+ * enseguida cuando ya hay demasiados esperando.
+ */
+class AdmissionControlDataSourceTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private DataSource target;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		target = mock(DataSource.class);
+		when(target.getConnection()).thenAnswer(inv -> mock(Connection.class));
+	}
+
+	@Test
+	void closingTheConnectionReleasesThePermit() throws SQLException {
+		AdmissionControlDataSource dataSource = newDataSource(1, 10, Duration.ofMillis(50));
+
+		Connection first = dataSource.getConnection();
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+		first.close();
+		first.close(); // un segundo close no debe liberar otro permiso
+		dataSource.getConnection();
+
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+		assertThat(rejections("timeout")).isEqualTo(2);
+	}
+
+	@Test
+	void rejectsImmediatelyWhenTooManyAreWaiting() throws Exception {
+		AdmissionControlDataSource dataSource = newDataSource(1, 1, Duration.ofSeconds(10));
+		Connection held = dataSource.getConnection();
+
+		CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+			try {
+				return dataSource.getConnection();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		while (meterRegistry.get("datasource.admission.waiting").gauge().value() < 1) {
+			Thread.onSpinWait();
+		}
+
+		long start = System.nanoTime();
+		assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+		assertThat(rejections("queue_full")).isEqualTo(1);
+
+		held.close();
+		assertThat(waiter.get(5, TimeUnit.SECONDS)).isNotNull();
+	}
+
+	@Test
+	void failedAcquireFromThePoolReturnsThePermit() throws SQLException {
+		when(target.getConnection()).thenThrow(new SQLTransientConnectionException("pool agotado"))
+				.thenAnswer(inv -> mock(Connection.class));
+		AdmissionControlDataSource dataSource = newDataSource(1, 10, Duration.ofMillis(50));
+
+		assertThatThrownBy(dataSource::getConnection).hasMessage("pool agotado");
+		assertThat(dataSource.getConnection()).isNotNull();
+	}
+
+	@Test
+	void closeShutsDownTheWrappedPool() throws Exception {
+		HikariDataSource pool = new HikariDataSource();
+		AdmissionControlDataSource dataSource = new AdmissionControlDataSource(pool, "test", 1, 1,
+				Duration.ofMillis(50), meterRegistry);
+
+		dataSource.close();
+
+		assertThat(pool.isClosed()).isTrue();
+	}
+
+	@Test
+	void closeIgnoresTargetsWithoutClose() throws Exception {
+		newDataSource(1, 1, Duration.ofMillis(50)).close();
+	}
+
+	private AdmissionControlDataSource newDataSource(int permits, int maxWaiting, Duration timeout) {
+		return new AdmissionControlDataSource(target, "test", permits, maxWaiting, timeout, meterRegistry);
+	}
+
+	private double rejections(String reason) {
+		return meterRegistry.get("datasource.admission.rejections").tag("reason", reason).counter().count();
+	}
+}
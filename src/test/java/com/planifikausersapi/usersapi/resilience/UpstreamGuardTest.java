@@ -0,0 +1,181 @@
+package com.planifikausersapi.usersapi.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+/**
+ * Ejercita el guard contra un servidor HTTP local que simula Supabase Auth caído.
+ */
+class UpstreamGuardTest {
+
+	private static final Duration OPEN_DURATION = Duration.ofSeconds(30);
+
+	private HttpServer server;
+	private WebClient webClient;
+	private final AtomicInteger requests = new AtomicInteger();
+	private volatile int status = 503;
+	private volatile CountDownLatch release = new CountDownLatch(0);
+
+	private final AtomicLong clock = new AtomicLong();
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/auth/v1/token", this::handle);
+		server.setExecutor(Executors.newCachedThreadPool());
+		server.start();
+		webClient = WebClient.create("http://127.0.0.1:" + server.getAddress().getPort());
+		meterRegistry = new SimpleMeterRegistry();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		server.stop(0);
+	}
+
+	@Test
+	void opensAfterFailuresAndRejectsWithoutCallingUpstream() {
+		UpstreamGuard guard = guard(1);
+
+		for (int i = 0; i < 4; i++) {
+			assertThatThrownBy(() -> guard.protect(token()).block())
+					.isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+		}
+		assertThat(guard.state()).isEqualTo(CircuitBreaker.State.OPEN);
+
+		assertThatThrownBy(() -> guard.protect(token()).block())
+				.isInstanceOf(UpstreamUnavailableException.class);
+		assertThat(requests).hasValue(4);
+		assertThat(rejections("circuit_open")).isEqualTo(1.0);
+		assertThat(meterRegistry.get("upstream.circuit.state").gauge().value()).isEqualTo(1.0);
+	}
+
+	@Test
+	void halfOpenProbesCloseTheCircuitWhenUpstreamRecovers() {
+		UpstreamGuard guard = guard(1);
+		tripCircuit(guard);
+
+		status = 200;
+		clock.addAndGet(OPEN_DURATION.toNanos());
+
+		assertThat(guard.protect(token()).block()).isEqualTo("{}");
+		assertThat(guard.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+		assertThat(guard.protect(token()).block()).isEqualTo("{}");
+		assertThat(guard.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+		assertThat(meterRegistry.get("upstream.circuit.transitions").tag("to", "CLOSED").counter().count())
+				.isEqualTo(1.0);
+	}
+
+	@Test
+	void failedProbeReopensTheCircuit() {
+		UpstreamGuard guard = guard(1);
+		tripCircuit(guard);
+
+		clock.addAndGet(OPEN_DURATION.toNanos());
+
+		assertThatThrownBy(() -> guard.protect(token()).block())
+				.isInstanceOf(WebClientResponseException.ServiceUnavailable.class);
+		assertThat(guard.state()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(() -> guard.protect(token()).block())
+				.isInstanceOf(UpstreamUnavailableException.class);
+	}
+
+	@Test
+	void clientErrorsDoNotOpenTheCircuit() {
+		UpstreamGuard guard = guard(1);
+		status = 400;
+
+		for (int i = 0; i < 10; i++) {
+			assertThatThrownBy(() -> guard.protect(token()).block())
+					.isInstanceOf(WebClientResponseException.BadRequest.class);
+		}
+		assertThat(guard.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+	}
+
+	@Test
+	void bulkheadRejectsCallsBeyondTheConcurrencyLimit() throws InterruptedException {
+		UpstreamGuard guard = guard(1);
+		status = 200;
+		release = new CountDownLatch(1);
+
+		CountDownLatch done = new CountDownLatch(1);
+		guard.protect(token()).doFinally(signal -> done.countDown()).subscribe();
+		waitForRequests(1);
+
+		assertThatThrownBy(() -> guard.protect(token()).block())
+				.isInstanceOf(UpstreamUnavailableException.class);
+		assertThat(rejections("bulkhead_full")).isEqualTo(1.0);
+
+		release.countDown();
+		assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(guard.protect(token()).block()).isEqualTo("{}");
+	}
+
+	private UpstreamGuard guard(int maxConcurrentCalls) {
+		return new UpstreamGuard("test", 4, 4, 0.5, OPEN_DURATION, 2, maxConcurrentCalls, meterRegistry,
+				clock::get);
+	}
+
+	private void tripCircuit(UpstreamGuard guard) {
+		for (int i = 0; i < 4; i++) {
+			guard.protect(token()).onErrorResume(e -> Mono.empty()).block();
+		}
+		assertThat(guard.state()).isEqualTo(CircuitBreaker.State.OPEN);
+	}
+
+	private Mono<String> token() {
+		return webClient.post().uri("/auth/v1/token").retrieve().bodyToMono(String.class);
+	}
+
+	private double rejections(String reason) {
+		return meterRegistry.get("upstream.rejections").tag("reason", reason).counter().count();
+	}
+
+	private void waitForRequests(int expected) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (requests.get() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(requests.get()).isEqualTo(expected);
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requests.incrementAndGet();
+		try {
+			release.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
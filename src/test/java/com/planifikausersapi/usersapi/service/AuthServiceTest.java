@@ -0,0 +1,244 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.planifikausersapi.usersapi.cache.SharedCacheTier;
+import com.planifikausersapi.usersapi.cache.UserPlanifikaCache;
+import com.planifikausersapi.usersapi.dto.SignUpResponse;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+import com.planifikausersapi.usersapi.resilience.UpstreamGuard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * El alta escribe la fila por JPA con una sola llamada HTTP (Supabase Auth) y, si la base
+ * falla y la fila no existe, borra el usuario de Auth con la service key. GET /auth/me agrupa por
+ * usuario, salvo con remote-user-lookup, donde cada token se verifica por su cuenta.
+ */
+class AuthServiceTest {
+
+	private static final String SERVICE_KEY = "service-key";
+
+	private final UUID supabaseUserId = UUID.randomUUID();
+	private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+	private UserRepository userRepository;
+	private SimpleMeterRegistry meterRegistry;
+	private AuthService authService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		meterRegistry = new SimpleMeterRegistry();
+		authService = newAuthService(false, Duration.ZERO);
+	}
+
+	@Test
+	void signUpWritesTheRowThroughJpaWithOneHttpCall() {
+		when(userRepository.save(any(UserPlanifika.class))).thenAnswer(inv -> {
+			UserPlanifika user = inv.getArgument(0);
+			user.setIdUser(42);
+			return user;
+		});
+
+		SignUpResponse response = authService.signUp("Ana", "ana@example.com", "secret", null, 2)
+				.block(Duration.ofSeconds(5));
+
+		assertThat(requests).extracting(request -> request.url().getPath()).containsExactly("/auth/v1/signup");
+		assertThat(response.db()).containsEntry("iduser", 42)
+				.containsEntry("idusertype", 2)
+				.containsEntry("iduserstatus", 1)
+				.containsEntry("supabaseuserid", supabaseUserId);
+	}
+
+	@Test
+	void failedInsertDeletesTheAuthUser() {
+		when(userRepository.save(any(UserPlanifika.class)))
+				.thenThrow(new DataIntegrityViolationException("insert rechazado"));
+
+		assertThatThrownBy(() -> authService.signUp("Ana", "ana@example.com", "secret", null, null)
+				.block(Duration.ofSeconds(5)))
+				.hasMessageContaining("insert rechazado");
+
+		assertThat(requests).hasSize(2);
+		ClientRequest compensation = requests.get(1);
+		assertThat(compensation.method()).isEqualTo(HttpMethod.DELETE);
+		assertThat(compensation.url().getPath()).isEqualTo("/auth/v1/admin/users/" + supabaseUserId);
+		assertThat(compensation.headers().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer " + SERVICE_KEY);
+		assertThat(compensation.headers().getFirst("apiKey")).isEqualTo(SERVICE_KEY);
+	}
+
+	@Test
+	void repeatedSignUpOfAnUnconfirmedEmailReusesTheExistingRow() {
+		when(userRepository.findBySupabaseUserId(supabaseUserId)).thenReturn(Optional.of(user()));
+
+		SignUpResponse response = authService.signUp("Ana", "ana@example.com", "secret", null, null)
+				.block(Duration.ofSeconds(5));
+
+		assertThat(response.db()).containsEntry("iduser", 42).containsEntry("supabaseuserid", supabaseUserId);
+		assertThat(requests).extracting(request -> request.url().getPath()).containsExactly("/auth/v1/signup");
+		verify(userRepository, never()).save(any(UserPlanifika.class));
+	}
+
+	@Test
+	void duplicateInsertKeepsTheAuthUserWhenTheRowExists() {
+		when(userRepository.findBySupabaseUserId(supabaseUserId))
+				.thenReturn(Optional.empty(), Optional.of(user()));
+		when(userRepository.save(any(UserPlanifika.class)))
+				.thenThrow(new DataIntegrityViolationException("duplicate key supabaseuserid"));
+
+		SignUpResponse response = authService.signUp("Ana", "ana@example.com", "secret", null, null)
+				.block(Duration.ofSeconds(5));
+
+		assertThat(response.db()).containsEntry("iduser", 42);
+		assertThat(requests).extracting(ClientRequest::method).containsExactly(HttpMethod.POST);
+	}
+
+	@Test
+	void unclearInsertOutcomeKeepsTheAuthUser() {
+		when(userRepository.findBySupabaseUserId(supabaseUserId))
+				.thenReturn(Optional.empty())
+				.thenThrow(new CannotCreateTransactionException("conexión perdida"));
+		when(userRepository.save(any(UserPlanifika.class)))
+				.thenThrow(new TransactionSystemException("commit sin confirmar"));
+
+		assertThatThrownBy(() -> authService.signUp("Ana", "ana@example.com", "secret", null, null)
+				.block(Duration.ofSeconds(5)))
+				.hasMessageContaining("commit sin confirmar");
+
+		assertThat(requests).extracting(ClientRequest::method).containsExactly(HttpMethod.POST);
+	}
+
+	@Test
+	void remoteLookupVerifiesEveryTokenOfTheSameUser() {
+		authService = newAuthService(true, Duration.ofMinutes(1));
+		when(userRepository.findBySupabaseUserId(supabaseUserId)).thenReturn(Optional.of(user()));
+
+		authService.getUserWithDatabaseInfo("token-a", jwt("token-a")).block(Duration.ofSeconds(5));
+		authService.getUserWithDatabaseInfo("token-b", jwt("token-b")).block(Duration.ofSeconds(5));
+		authService.getUserWithDatabaseInfo("token-a", jwt("token-a")).block(Duration.ofSeconds(5));
+
+		assertThat(requests).extracting(request -> request.headers().getFirst(HttpHeaders.AUTHORIZATION))
+				.containsExactly("Bearer token-a", "Bearer token-b");
+		assertThat(singleFlightCalls("cached")).isEqualTo(1.0);
+	}
+
+	@Test
+	void localLookupSharesTheProfileAcrossTokens() {
+		authService = newAuthService(false, Duration.ofMinutes(1));
+		when(userRepository.findBySupabaseUserId(supabaseUserId)).thenReturn(Optional.of(user()));
+
+		authService.getUserWithDatabaseInfo("token-a", jwt("token-a")).block(Duration.ofSeconds(5));
+		authService.getUserWithDatabaseInfo("token-b", jwt("token-b")).block(Duration.ofSeconds(5));
+
+		assertThat(requests).isEmpty();
+		assertThat(singleFlightCalls("cached")).isEqualTo(1.0);
+	}
+
+	@Test
+	void savedProfileIsNotServedStaleWhenTheAuthUpdateFails() {
+		authService = newAuthService(false, Duration.ofMinutes(1));
+		UserPlanifika stored = user();
+		when(userRepository.findBySupabaseUserId(supabaseUserId)).thenReturn(Optional.of(stored));
+		when(userRepository.save(any(UserPlanifika.class))).thenAnswer(inv -> inv.getArgument(0));
+		assertThat(authService.getUserWithDatabaseInfo("token-a", jwt("token-a")).block(Duration.ofSeconds(5)).name())
+				.isEqualTo("Ana");
+
+		assertThatThrownBy(() -> authService.updateProfile("token-a", jwt("token-a"), "Beatriz", null, null)
+				.block(Duration.ofSeconds(5)))
+				.hasMessageContaining("Supabase Auth Update Error");
+
+		assertThat(stored.getName()).isEqualTo("Beatriz");
+		assertThat(authService.getUserWithDatabaseInfo("token-a", jwt("token-a")).block(Duration.ofSeconds(5)).name())
+				.isEqualTo("Beatriz");
+	}
+
+	private AuthService newAuthService(boolean remoteUserLookup, Duration meCacheTtl) {
+		String signUpBody = "{\"user\":{\"id\":\"" + supabaseUserId + "\",\"email\":\"ana@example.com\"}}";
+		String userBody = "{\"id\":\"" + supabaseUserId + "\",\"email\":\"ana@example.com\"}";
+		WebClient webClient = WebClient.builder()
+				.exchangeFunction(request -> {
+					requests.add(request);
+					if (request.method() == HttpMethod.PUT) {
+						// Llega después de que la base confirme, como un Auth lento que termina fallando
+						return Mono.delay(Duration.ofMillis(200))
+								.thenReturn(ClientResponse.create(HttpStatus.BAD_GATEWAY).body("caído").build());
+					}
+					String body = request.url().getPath().equals("/auth/v1/user") ? userBody : signUpBody;
+					return Mono.just(ClientResponse.create(HttpStatus.OK)
+							.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+							.body(body)
+							.build());
+				})
+				.build();
+		UpstreamGuard authGuard = new UpstreamGuard("test", 20, 10, 0.5, Duration.ofSeconds(30), 3, 25,
+				meterRegistry);
+
+		return new AuthService(remoteUserLookup, webClient, authGuard, userRepository, userCache(meterRegistry),
+				token -> {
+					throw new IllegalStateException("Los tests pasan el JWT ya decodificado");
+				}, Schedulers.boundedElastic(), meCacheTtl, 100, meterRegistry, SERVICE_KEY);
+	}
+
+	private Jwt jwt(String token) {
+		return Jwt.withTokenValue(token)
+				.header("alg", "HS256")
+				.subject(supabaseUserId.toString())
+				.claim("email", "ana@example.com")
+				.expiresAt(Instant.now().plus(Duration.ofHours(1)))
+				.build();
+	}
+
+	private UserPlanifika user() {
+		UserPlanifika user = new UserPlanifika();
+		user.setIdUser(42);
+		user.setName("Ana");
+		user.setSupabaseUserId(supabaseUserId);
+		return user;
+	}
+
+	private double singleFlightCalls(String result) {
+		return meterRegistry.get("singleflight.calls").tag("result", result).counter().count();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static UserPlanifikaCache userCache(SimpleMeterRegistry meterRegistry) {
+		StaticListableBeanFactory empty = new StaticListableBeanFactory();
+		ObjectProvider<SharedCacheTier<UUID, UserPlanifika>> noSharedTier =
+				(ObjectProvider) empty.getBeanProvider(SharedCacheTier.class);
+		return new UserPlanifikaCache(100, Duration.ofMinutes(5), noSharedTier,
+				empty.getBeanProvider(InvalidationBus.class), meterRegistry);
+	}
+}
@@ -0,0 +1,153 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import com.planifikausersapi.usersapi.resilience.UpstreamGuard;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * El login externo no debe tocar SIU con un acierto de caché y, en un fallo, debe consultar
+ * Planifika y SIU a la vez.
+ */
+class SIUAuthServiceTest {
+
+	private static final String SERVICE_KEY = "service-key";
+
+	private final UUID supabaseUserId = UUID.randomUUID();
+	private UserService userService;
+	private SIUUserService siuUserService;
+	private SIUAuthService siuAuthService;
+
+	@BeforeEach
+	void setUp() {
+		userService = mock(UserService.class);
+		siuUserService = mock(SIUUserService.class);
+
+		String body = "{\"access_token\":\"user-token\",\"user\":{\"id\":\"" + supabaseUserId + "\"}}";
+		WebClient webClient = WebClient.builder()
+				.exchangeFunction(request -> Mono.just(ClientResponse.create(HttpStatus.OK)
+						.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+						.body(body)
+						.build()))
+				.build();
+		UpstreamGuard authGuard = new UpstreamGuard("test", 20, 10, 0.5, Duration.ofSeconds(30), 3, 25,
+				new SimpleMeterRegistry());
+
+		siuAuthService = new SIUAuthService(webClient, authGuard, SERVICE_KEY, userService, siuUserService,
+				Schedulers.boundedElastic());
+	}
+
+	@Test
+	void cacheHitSkipsBothDatabases() {
+		when(userService.findCachedBySupabaseId(supabaseUserId)).thenReturn(Optional.of(student(7)));
+
+		Map<String, Object> result = siuAuthService.externalLogin("a@b.c", "secret").block();
+
+		assertThat(result).containsEntry("access_token", SERVICE_KEY);
+		assertThat(((UserPlanifika) result.get("user")).getIdUser()).isEqualTo(7);
+		verify(userService, never()).findOptionalBySupabaseId(any());
+		verify(siuUserService, never()).findBySupabaseId(any());
+	}
+
+	@Test
+	void lookupsRunConcurrently() {
+		// Cada búsqueda espera a que la otra haya empezado: en serie, el login vencería el timeout
+		CountDownLatch bothStarted = new CountDownLatch(2);
+		when(userService.findCachedBySupabaseId(supabaseUserId)).thenReturn(Optional.empty());
+		when(userService.findOptionalBySupabaseId(supabaseUserId)).thenAnswer(inv -> {
+			awaitOther(bothStarted);
+			return Optional.of(student(7));
+		});
+		when(siuUserService.findBySupabaseId(supabaseUserId)).thenAnswer(inv -> {
+			awaitOther(bothStarted);
+			return siuUser();
+		});
+
+		Map<String, Object> result = siuAuthService.externalLogin("a@b.c", "secret")
+				.block(Duration.ofSeconds(5));
+
+		assertThat(((UserPlanifika) result.get("user")).getIdUser()).isEqualTo(7);
+		verify(userService, never()).save(any());
+	}
+
+	@Test
+	void missingPlanifikaUserIsCreatedFromSiu() {
+		when(userService.findCachedBySupabaseId(supabaseUserId)).thenReturn(Optional.empty());
+		when(userService.findOptionalBySupabaseId(supabaseUserId)).thenReturn(Optional.empty());
+		when(siuUserService.findBySupabaseId(supabaseUserId)).thenReturn(siuUser());
+		when(userService.save(any())).thenAnswer(inv -> {
+			UserPlanifika user = inv.getArgument(0);
+			user.setIdUser(42);
+			return user;
+		});
+
+		Map<String, Object> result = siuAuthService.externalLogin("a@b.c", "secret").block();
+
+		UserPlanifika created = (UserPlanifika) result.get("user");
+		assertThat(created.getIdUser()).isEqualTo(42);
+		assertThat(created.getName()).isEqualTo("Estudiante SIU");
+	}
+
+	@Test
+	void siuFailureIsIgnoredWhenPlanifikaHasTheUser() {
+		when(userService.findCachedBySupabaseId(supabaseUserId)).thenReturn(Optional.empty());
+		when(userService.findOptionalBySupabaseId(supabaseUserId)).thenReturn(Optional.of(student(7)));
+		when(siuUserService.findBySupabaseId(supabaseUserId))
+				.thenThrow(new EntityNotFoundException("no está en SIU"));
+
+		Map<String, Object> result = siuAuthService.externalLogin("a@b.c", "secret").block();
+
+		assertThat(((UserPlanifika) result.get("user")).getIdUser()).isEqualTo(7);
+	}
+
+	private static void awaitOther(CountDownLatch bothStarted) throws InterruptedException {
+		bothStarted.countDown();
+		if (!bothStarted.await(2, TimeUnit.SECONDS)) {
+			throw new IllegalStateException("Las búsquedas se ejecutaron en serie");
+		}
+	}
+
+	private UserPlanifika student(int idUser) {
+		UserPlanifika user = new UserPlanifika();
+		user.setIdUser(idUser);
+		user.setName("Ana");
+		user.setIdUserType(3);
+		user.setIdUserStatus(1);
+		user.setSupabaseUserId(supabaseUserId);
+		return user;
+	}
+
+	private UserSIU siuUser() {
+		UserSIU user = new UserSIU();
+		user.setIdUserSIU(1);
+		user.setName("Estudiante SIU");
+		user.setSupabaseUserId(supabaseUserId);
+		return user;
+	}
+}
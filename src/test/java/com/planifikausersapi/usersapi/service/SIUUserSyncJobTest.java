@@ -0,0 +1,136 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.planifikausersapi.usersapi.dto.UserImportResult;
+import com.planifikausersapi.usersapi.dto.UserImportResult.Outcome;
+import com.planifikausersapi.usersapi.dto.UserImportRow;
+import com.planifikausersapi.usersapi.model.siu.UserSIU;
+import com.planifikausersapi.usersapi.repository.siu.SIUUserRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * La marca de agua debe avanzar por bloques completos y no saltarse un bloque que falló; las
+ * filas incompletas que deja atrás se reintentan en cada corrida.
+ */
+class SIUUserSyncJobTest {
+
+	private static final int CHUNK_SIZE = 2;
+
+	private SIUUserRepository siuUserRepository;
+	private UserImportService userImportService;
+	private SIUUserSyncJob syncJob;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() {
+		siuUserRepository = mock(SIUUserRepository.class);
+		userImportService = mock(UserImportService.class);
+		meterRegistry = new SimpleMeterRegistry();
+		syncJob = new SIUUserSyncJob(siuUserRepository, userImportService, CHUNK_SIZE, meterRegistry);
+	}
+
+	@Test
+	void secondRunOnlyReadsRowsAfterTheWatermark() {
+		when(siuUserRepository.findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(0), any(Limit.class)))
+				.thenReturn(List.of(siuUser(1), siuUser(2)));
+		when(siuUserRepository.findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(2), any(Limit.class)))
+				.thenReturn(List.of(siuUser(3)));
+		when(userImportService.importBatch(anyList())).thenAnswer(inv -> created(inv.getArgument(0)));
+
+		syncJob.sync();
+		syncJob.sync();
+
+		verify(siuUserRepository, times(1)).findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(0), any(Limit.class));
+		verify(siuUserRepository, times(1)).findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(2), any(Limit.class));
+		verify(siuUserRepository, times(1)).findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(3), any(Limit.class));
+		verify(userImportService, times(2)).importBatch(anyList());
+	}
+
+	@Test
+	void failedChunkIsRetriedOnTheNextRun() {
+		when(siuUserRepository.findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(0), any(Limit.class)))
+				.thenReturn(List.of(siuUser(1)));
+		when(userImportService.importBatch(anyList()))
+				.thenReturn(List.of(new UserImportResult(1, null, Outcome.FAILED, null, "timeout")))
+				.thenAnswer(inv -> created(inv.getArgument(0)));
+
+		syncJob.sync();
+		syncJob.sync();
+
+		verify(siuUserRepository, times(2)).findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(0), any(Limit.class));
+		verify(userImportService, times(2)).importBatch(anyList());
+	}
+
+	@Test
+	void incompleteRowsAreRetriedAfterTheWatermarkPassesThem() {
+		UserSIU unlinked = siuUser(2);
+		unlinked.setSupabaseUserId(null);
+		when(siuUserRepository.findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(0), any(Limit.class)))
+				.thenReturn(List.of(siuUser(1), unlinked));
+		when(userImportService.importBatch(anyList())).thenAnswer(inv -> created(inv.getArgument(0)));
+
+		syncJob.sync();
+		assertThat(meterRegistry.get("siu.sync.incomplete").gauge().value()).isEqualTo(1.0);
+
+		// La cuenta se vincula después: la siguiente corrida la da de alta aunque la marca ya pasó
+		when(siuUserRepository.findAllById(List.of(2))).thenReturn(List.of(siuUser(2)));
+		syncJob.sync();
+
+		verify(siuUserRepository, times(1)).findAllById(List.of(2));
+		verify(siuUserRepository, times(2)).findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(2), any(Limit.class));
+		verify(userImportService, times(2)).importBatch(anyList());
+		assertThat(meterRegistry.get("siu.sync.incomplete").gauge().value()).isZero();
+		assertThat(meterRegistry.get("siu.sync.users").tag("outcome", "created").counter().count()).isEqualTo(2.0);
+	}
+
+	@Test
+	void rowsStillIncompleteStayPending() {
+		UserSIU unnamed = siuUser(1);
+		unnamed.setName(null);
+		when(siuUserRepository.findByIdUserSIUGreaterThanOrderByIdUserSIUAsc(eq(0), any(Limit.class)))
+				.thenReturn(List.of(unnamed));
+		when(siuUserRepository.findAllById(List.of(1))).thenReturn(List.of(unnamed));
+
+		syncJob.sync();
+		syncJob.sync();
+		syncJob.sync();
+
+		verify(siuUserRepository, times(2)).findAllById(List.of(1));
+		verify(userImportService, never()).importBatch(anyList());
+		assertThat(meterRegistry.get("siu.sync.incomplete").gauge().value()).isEqualTo(1.0);
+	}
+
+	private static List<UserImportResult> created(List<UserImportRow> rows) {
+		List<UserImportResult> results = new ArrayList<>();
+		for (int i = 0; i < rows.size(); i++) {
+			results.add(new UserImportResult(i + 1, rows.get(i).supabaseUserId(), Outcome.CREATED, i + 100, null));
+		}
+		return results;
+	}
+
+	private static UserSIU siuUser(int id) {
+		UserSIU user = new UserSIU();
+		user.setIdUserSIU(id);
+		user.setName("Estudiante " + id);
+		user.setSupabaseUserId(UUID.randomUUID());
+		return user;
+	}
+}
@@ -0,0 +1,159 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import com.planifikausersapi.usersapi.dto.TicketEvent;
+import com.planifikausersapi.usersapi.invalidation.InMemoryInvalidationTransport;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+/**
+ * Un cliente nuevo solo ve lo que pasa después de conectarse; uno que reconecta recibe lo que
+ * se perdió o un reset si el hueco ya no está en memoria; uno lento no frena a los demás.
+ */
+class TicketEventHubTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private TicketEventHub hub;
+
+	@BeforeEach
+	void setUp() {
+		hub = newHub(null);
+	}
+
+	@Test
+	void newSubscribersOnlySeeEventsPublishedAfterConnecting() {
+		hub.publish(TicketEvent.CREATED, 1, null);
+		List<TicketEvent> received = new ArrayList<>();
+		Disposable subscription = hub.subscribe(null).subscribe(received::add);
+
+		hub.publish(TicketEvent.UPDATED, 2, null);
+		hub.publish(TicketEvent.DELETED, 3, null);
+		subscription.dispose();
+
+		assertThat(received).extracting(TicketEvent::idTickets).containsExactly(2, 3);
+	}
+
+	@Test
+	void reconnectReplaysEverythingAfterLastEventId() {
+		TicketEvent seen = hub.publish(TicketEvent.CREATED, 1, null);
+		hub.publish(TicketEvent.UPDATED, 1, null);
+		hub.publish(TicketEvent.DELETED, 1, null);
+
+		List<TicketEvent> replayed = hub.subscribe(seen.id()).take(2).collectList().block(TIMEOUT);
+
+		assertThat(replayed).extracting(TicketEvent::type).containsExactly(TicketEvent.UPDATED, TicketEvent.DELETED);
+		assertThat(replayed).extracting(TicketEvent::id).containsExactly(seen.id() + 1, seen.id() + 2);
+	}
+
+	@Test
+	void reconnectBeyondTheReplayBufferStartsWithReset() {
+		TicketEvent seen = hub.publish(TicketEvent.CREATED, 1, null);
+		TicketEvent last = null;
+		for (int i = 0; i < 5; i++) {
+			last = hub.publish(TicketEvent.UPDATED, 1, null);
+		}
+
+		TicketEvent first = hub.subscribe(seen.id()).blockFirst(TIMEOUT);
+		TicketEvent fromOtherProcess = hub.subscribe(last.id() + 1000).blockFirst(TIMEOUT);
+
+		assertThat(first.type()).isEqualTo(TicketEvent.RESET);
+		assertThat(first.id()).isEqualTo(last.id());
+		assertThat(fromOtherProcess.type()).isEqualTo(TicketEvent.RESET);
+	}
+
+	@Test
+	void changesFromOtherReplicasAreStreamedWithoutTheTicket() {
+		InMemoryInvalidationTransport transport = new InMemoryInvalidationTransport();
+		TicketEventHub writer = newHub(newBus(transport));
+		TicketEventHub reader = newHub(newBus(transport));
+		List<TicketEvent> received = new ArrayList<>();
+		Disposable subscription = reader.subscribe(null).subscribe(received::add);
+
+		writer.publishAfterCommit(TicketEvent.UPDATED, 7, null);
+		writer.publishAfterCommit(TicketEvent.DELETED, 8, null);
+		subscription.dispose();
+
+		assertThat(received).extracting(TicketEvent::type).containsExactly(TicketEvent.UPDATED, TicketEvent.DELETED);
+		assertThat(received).extracting(TicketEvent::idTickets).containsExactly(7, 8);
+		assertThat(received).extracting(TicketEvent::ticket).containsOnlyNulls();
+	}
+
+	@Test
+	void slowSubscriberIsCutOffWithoutBlockingOthers() {
+		List<TicketEvent> fast = new ArrayList<>();
+		Disposable fastSubscription = hub.subscribe(null).subscribe(fast::add);
+		SlowSubscriber slow = new SlowSubscriber();
+		hub.subscribe(null).subscribe(slow);
+		assertThat(subscribers()).isEqualTo(2);
+
+		for (int i = 0; i < 5; i++) {
+			hub.publish(TicketEvent.CREATED, i, null);
+		}
+
+		assertThat(fast).hasSize(5);
+		// Recibió uno, tiene dos en su buffer y el cuarto lo desconectó del hub
+		assertThat(meterRegistry.get("tickets.stream.overflows").counter().count()).isEqualTo(1);
+		assertThat(subscribers()).isEqualTo(1);
+
+		slow.request(Long.MAX_VALUE);
+		fastSubscription.dispose();
+
+		assertThat(slow.received).extracting(TicketEvent::idTickets).containsExactly(0, 1, 2);
+		assertThat(slow.completed).isTrue();
+		assertThat(subscribers()).isZero();
+	}
+
+	private TicketEventHub newHub(InvalidationBus invalidationBus) {
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		if (invalidationBus != null) {
+			beanFactory.addBean("invalidationBus", invalidationBus);
+		}
+		return new TicketEventHub(4, 2, meterRegistry, beanFactory.getBeanProvider(InvalidationBus.class));
+	}
+
+	private InvalidationBus newBus(InMemoryInvalidationTransport transport) {
+		return new InvalidationBus(Map.of(InvalidationBus.TICKETS_CHANNEL, transport), meterRegistry);
+	}
+
+	private double subscribers() {
+		return meterRegistry.get("tickets.stream.subscribers").gauge().value();
+	}
+
+	/** Pide un solo evento y después solo lo que se le pida desde el test. */
+	private static class SlowSubscriber extends BaseSubscriber<TicketEvent> {
+
+		private final List<TicketEvent> received = new ArrayList<>();
+		private volatile boolean completed;
+
+		@Override
+		protected void hookOnSubscribe(Subscription subscription) {
+			subscription.request(1);
+		}
+
+		@Override
+		protected void hookOnNext(TicketEvent event) {
+			received.add(event);
+		}
+
+		@Override
+		protected void hookOnComplete() {
+			completed = true;
+		}
+	}
+}
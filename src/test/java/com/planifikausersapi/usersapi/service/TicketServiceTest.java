@@ -0,0 +1,308 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import com.planifikausersapi.usersapi.dto.TicketBatchItemResult;
+import com.planifikausersapi.usersapi.dto.TicketBatchUpdateRequest;
+import com.planifikausersapi.usersapi.dto.TicketEvent;
+import com.planifikausersapi.usersapi.dto.TicketPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketResponse;
+import com.planifikausersapi.usersapi.dto.TicketSeekPageResponse;
+import com.planifikausersapi.usersapi.dto.TicketStatsResponse;
+import com.planifikausersapi.usersapi.invalidation.InvalidationBus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.model.drimsoft.TicketSupport;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketStatusRepository;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketSupportRepository;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketSupportRepository.TicketCountRow;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+
+/**
+ * Cuenta las llamadas a los repositorios de cada listado: una para los tickets y, como mucho,
+ * una para cargar el diccionario de estados, sin importar cuántas filas se devuelvan. Son
+ * mocks: no ven selects extra de Hibernate ni cargas perezosas, solo que el servicio ya no
+ * pide un TicketStatus por fila.
+ */
+class TicketServiceTest {
+
+	private static final int ROWS = 500;
+
+	private TicketSupportRepository ticketSupportRepository;
+	private TicketStatusRepository ticketStatusRepository;
+	private TicketEventHub ticketEventHub;
+	private TicketService ticketService;
+	private List<TicketSupport> tickets;
+
+	@BeforeEach
+	void setUp() {
+		ticketSupportRepository = mock(TicketSupportRepository.class);
+		ticketStatusRepository = mock(TicketStatusRepository.class);
+		ticketEventHub = new TicketEventHub(16, 16, new SimpleMeterRegistry(),
+				new StaticListableBeanFactory().getBeanProvider(InvalidationBus.class));
+		ticketService = new TicketService(ticketSupportRepository, ticketStatusRepository,
+				new TicketStatusCache(ticketStatusRepository), new TicketStatsCache(Duration.ofSeconds(30)),
+				ticketEventHub);
+
+		when(ticketStatusRepository.findAll()).thenReturn(List.of(status(1, "PENDING"), status(2, "ANSWERED")));
+
+		tickets = new ArrayList<>();
+		for (int i = 1; i <= ROWS; i++) {
+			tickets.add(ticket(i, i % 2 + 1));
+		}
+		when(ticketSupportRepository.findAll()).thenReturn(tickets);
+		when(ticketSupportRepository.findAll(any(Pageable.class)))
+				.thenAnswer(inv -> new PageImpl<>(tickets.subList(0, 10), inv.getArgument(0), ROWS));
+		when(ticketSupportRepository.findByIdPlanifikaUser(anyInt())).thenReturn(tickets);
+		when(ticketSupportRepository.findByIdTicketStatus(anyInt())).thenReturn(tickets);
+	}
+
+	@Test
+	void getAllTicketsMakesConstantRepositoryCalls() {
+		List<TicketResponse> result = ticketService.getAllTickets();
+
+		assertThat(result).hasSize(ROWS);
+		assertThat(result.get(0).ticketStatusName()).isEqualTo("ANSWERED");
+		assertThat(result.get(1).ticketStatusName()).isEqualTo("PENDING");
+		verify(ticketSupportRepository, times(1)).findAll();
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void getTicketsPagedMakesConstantRepositoryCalls() {
+		TicketPageResponse result = ticketService.getTicketsPaged(0, 10);
+
+		assertThat(result.items()).hasSize(10);
+		assertThat(result.totalElements()).isEqualTo(ROWS);
+		verify(ticketSupportRepository, times(1))
+				.findAll(PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "idTickets")));
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void getTicketsByPlanifikaUserMakesConstantRepositoryCalls() {
+		assertThat(ticketService.getTicketsByPlanifikaUser(7)).hasSize(ROWS);
+
+		verify(ticketSupportRepository, times(1)).findByIdPlanifikaUser(7);
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void getTicketsByStatusMakesConstantRepositoryCalls() {
+		assertThat(ticketService.getTicketsByStatus(1)).hasSize(ROWS);
+
+		verify(ticketSupportRepository, times(1)).findByIdTicketStatus(1);
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void repeatedListingsReuseLoadedDictionary() {
+		ticketService.getAllTickets();
+		ticketService.getTicketsByStatus(1);
+		ticketService.getTicketsByPlanifikaUser(7);
+
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void batchUpdateFetchesAllTicketsInOneQuery() {
+		when(ticketSupportRepository.findAllById(any())).thenReturn(tickets.subList(0, 3));
+
+		List<TicketBatchItemResult> results = ticketService.updateTickets(List.of(
+				new TicketBatchUpdateRequest(1, 1, "Revisado", 4),
+				new TicketBatchUpdateRequest(2, null, "Sin cambio de estado", null),
+				new TicketBatchUpdateRequest(3, 2, null, null),
+				new TicketBatchUpdateRequest(999, 2, null, null)));
+
+		assertThat(results).extracting(TicketBatchItemResult::status).containsExactly(
+				TicketBatchItemResult.Status.UPDATED, TicketBatchItemResult.Status.UPDATED,
+				TicketBatchItemResult.Status.UPDATED, TicketBatchItemResult.Status.NOT_FOUND);
+		assertThat(results.get(0).ticket().ticketStatusName()).isEqualTo("PENDING");
+		assertThat(tickets.get(0).getAnswer()).isEqualTo("Revisado");
+		assertThat(tickets.get(0).getIdDrimsoftUser()).isEqualTo(4);
+		verify(ticketSupportRepository, times(1)).findAllById(any());
+		verify(ticketSupportRepository, never()).findById(anyInt());
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void batchUpdateReportsUnknownStatusWithoutApplyingIt() {
+		when(ticketSupportRepository.findAllById(any())).thenReturn(tickets.subList(0, 1));
+
+		List<TicketBatchItemResult> results = ticketService.updateTickets(List.of(
+				new TicketBatchUpdateRequest(1, 42, "Respuesta", null)));
+
+		assertThat(results.get(0).status()).isEqualTo(TicketBatchItemResult.Status.INVALID);
+		assertThat(tickets.get(0).getIdTicketStatus()).isEqualTo(2);
+		assertThat(tickets.get(0).getAnswer()).isNull();
+	}
+
+	@Test
+	void writesPublishEventsWithoutExtraQueries() {
+		when(ticketSupportRepository.findAllById(any())).thenReturn(tickets.subList(0, 2));
+		when(ticketSupportRepository.existsById(3)).thenReturn(true);
+		List<TicketEvent> received = new ArrayList<>();
+		Disposable subscription = ticketEventHub.subscribe(null).subscribe(received::add);
+
+		ticketService.updateTickets(List.of(
+				new TicketBatchUpdateRequest(1, 1, "Revisado", null),
+				new TicketBatchUpdateRequest(2, 42, null, null)));
+		ticketService.deleteTicket(3);
+		subscription.dispose();
+
+		assertThat(received).extracting(TicketEvent::type).containsExactly(TicketEvent.UPDATED, TicketEvent.DELETED);
+		assertThat(received.get(0).ticket().answer()).isEqualTo("Revisado");
+		assertThat(received.get(1).idTickets()).isEqualTo(3);
+		verify(ticketSupportRepository, times(1)).findAllById(any());
+		verify(ticketSupportRepository, never()).findById(anyInt());
+	}
+
+	@Test
+	void batchUpdateRejectsOversizedBatches() {
+		List<TicketBatchUpdateRequest> updates = new ArrayList<>();
+		for (int i = 0; i <= TicketService.MAX_BATCH_SIZE; i++) {
+			updates.add(new TicketBatchUpdateRequest(i, 1, null, null));
+		}
+
+		assertThatThrownBy(() -> ticketService.updateTickets(updates))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(ticketSupportRepository, never()).findAllById(any());
+	}
+
+	@Test
+	void seekPagingNeverCountsAndReturnsTheNextCursor() {
+		when(ticketSupportRepository.findByIdTicketsLessThanOrderByIdTicketsDesc(eq(100), any(Limit.class)))
+				.thenReturn(tickets.subList(0, 11));
+
+		TicketSeekPageResponse result = ticketService.getTicketsAfter(100, 10, false);
+
+		assertThat(result.items()).hasSize(10);
+		assertThat(result.hasNext()).isTrue();
+		assertThat(result.nextCursor()).isEqualTo(10);
+		assertThat(result.totalElements()).isNull();
+		verify(ticketSupportRepository, times(1)).findByIdTicketsLessThanOrderByIdTicketsDesc(100, Limit.of(11));
+		verify(ticketSupportRepository, never()).count();
+		verify(ticketSupportRepository, never()).countGrouped();
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void seekLastPageHasNoCursor() {
+		when(ticketSupportRepository.findByOrderByIdTicketsDesc(any(Limit.class))).thenReturn(tickets.subList(0, 3));
+
+		TicketSeekPageResponse result = ticketService.getTicketsAfter(null, 10, false);
+
+		assertThat(result.items()).hasSize(3);
+		assertThat(result.hasNext()).isFalse();
+		assertThat(result.nextCursor()).isNull();
+	}
+
+	@Test
+	void searchCapsPageSizeAndMapsInOneQuery() {
+		when(ticketSupportRepository.search(any(), any(Pageable.class)))
+				.thenAnswer(inv -> new PageImpl<>(tickets.subList(0, 3), inv.getArgument(1), 3));
+
+		TicketPageResponse result = ticketService.searchTickets("  impresora  ", 0, 10_000);
+
+		assertThat(result.items()).hasSize(3);
+		verify(ticketSupportRepository, times(1))
+				.search("impresora", PageRequest.of(0, TicketService.MAX_SEARCH_PAGE_SIZE));
+		verifyStatusDictionaryLoadedOnce();
+	}
+
+	@Test
+	void searchRejectsBlankQueries() {
+		assertThatThrownBy(() -> ticketService.searchTickets(" ", 0, 20))
+				.isInstanceOf(IllegalArgumentException.class);
+		verify(ticketSupportRepository, never()).search(any(), any());
+	}
+
+	@Test
+	void statsComeFromOneAggregateQueryAndAreCachedUntilAWrite() {
+		// Las filas se arman antes: stubbear los mocks dentro de thenReturn deja el when() a medias
+		List<TicketCountRow> rows = List.of(
+				countRow(TicketCountRow.BY_STATUS, 1, null, null, 300),
+				countRow(TicketCountRow.BY_STATUS, 2, null, null, 200),
+				countRow(TicketCountRow.BY_DRIMSOFT_USER, null, 4, null, 200),
+				countRow(TicketCountRow.BY_DRIMSOFT_USER, null, null, null, 300),
+				countRow(TicketCountRow.BY_ANSWERED, null, null, true, 180),
+				countRow(TicketCountRow.BY_ANSWERED, null, null, false, 320),
+				countRow(TicketCountRow.TOTAL, null, null, null, ROWS));
+		when(ticketSupportRepository.countGrouped()).thenReturn(rows);
+
+		TicketStatsResponse stats = ticketService.getTicketStats();
+		ticketService.getTicketStats();
+
+		assertThat(stats.total()).isEqualTo(ROWS);
+		assertThat(stats.answered()).isEqualTo(180);
+		assertThat(stats.open()).isEqualTo(320);
+		assertThat(stats.byStatus()).extracting(TicketStatsResponse.StatusCount::ticketStatusName)
+				.containsExactly("PENDING", "ANSWERED");
+		assertThat(stats.byDrimsoftUser()).extracting(TicketStatsResponse.DrimsoftUserCount::idDrimsoftUser)
+				.containsExactly(4, null);
+		verify(ticketSupportRepository, times(1)).countGrouped();
+
+		when(ticketSupportRepository.existsById(1)).thenReturn(true);
+		ticketService.deleteTicket(1);
+		ticketService.getTicketStats();
+
+		verify(ticketSupportRepository, times(2)).countGrouped();
+	}
+
+	private void verifyStatusDictionaryLoadedOnce() {
+		verify(ticketStatusRepository, times(1)).findAll();
+		verify(ticketStatusRepository, never()).findById(anyInt());
+		verifyNoMoreInteractions(ticketStatusRepository);
+	}
+
+	private static TicketStatus status(int id, String name) {
+		TicketStatus status = new TicketStatus();
+		status.setIdTicketStatus(id);
+		status.setName(name);
+		return status;
+	}
+
+	private static TicketCountRow countRow(int groupingId, Integer idTicketStatus, Integer idDrimsoftUser,
+			Boolean answered, long total) {
+		TicketCountRow row = mock(TicketCountRow.class);
+		when(row.getGroupingId()).thenReturn(groupingId);
+		when(row.getIdTicketStatus()).thenReturn(idTicketStatus);
+		when(row.getIdDrimsoftUser()).thenReturn(idDrimsoftUser);
+		when(row.getAnswered()).thenReturn(answered);
+		when(row.getTotal()).thenReturn(total);
+		return row;
+	}
+
+	private static TicketSupport ticket(int id, int statusId) {
+		TicketSupport ticket = new TicketSupport();
+		ticket.setIdTickets(id);
+		ticket.setIdPlanifikaUser(7);
+		ticket.setIdTicketStatus(statusId);
+		ticket.setTitle("Ticket " + id);
+		return ticket;
+	}
+}
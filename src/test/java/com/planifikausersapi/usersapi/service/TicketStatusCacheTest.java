@@ -0,0 +1,136 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.planifikausersapi.usersapi.model.drimsoft.TicketStatus;
+import com.planifikausersapi.usersapi.repository.drimsoft.TicketStatusRepository;
+
+/**
+ * Un id que no está en el diccionario lo recarga, pero a lo sumo una vez por intervalo. Las
+ * lecturas en frío comparten una carga, salvo las que ya tienen una transacción abierta.
+ */
+class TicketStatusCacheTest {
+
+	private static final Duration MISS_REFRESH_INTERVAL = Duration.ofSeconds(10);
+
+	private final AtomicLong clock = new AtomicLong();
+	private TicketStatusRepository ticketStatusRepository;
+	private TicketStatusCache cache;
+
+	@BeforeEach
+	void setUp() {
+		ticketStatusRepository = mock(TicketStatusRepository.class);
+		when(ticketStatusRepository.findAll()).thenReturn(List.of(status(1, "PENDING")));
+		cache = new TicketStatusCache(ticketStatusRepository, MISS_REFRESH_INTERVAL, clock::get);
+	}
+
+	@Test
+	void missReloadsAStatusCreatedAfterTheLastRefresh() {
+		assertThat(cache.get(1).getName()).isEqualTo("PENDING");
+
+		when(ticketStatusRepository.findAll()).thenReturn(List.of(status(1, "PENDING"), status(3, "CLOSED")));
+		clock.addAndGet(MISS_REFRESH_INTERVAL.toNanos());
+
+		assertThat(cache.get(3).getName()).isEqualTo("CLOSED");
+		assertThat(cache.findByName("CLOSED")).isPresent();
+		verify(ticketStatusRepository, times(2)).findAll();
+	}
+
+	@Test
+	void repeatedMissesAreRateLimited() {
+		cache.get(1);
+		clock.addAndGet(MISS_REFRESH_INTERVAL.toNanos());
+
+		assertThat(cache.get(42)).isNull();
+		assertThat(cache.get(42)).isNull();
+		assertThat(cache.findByName("MISSING")).isEmpty();
+		verify(ticketStatusRepository, times(2)).findAll();
+
+		clock.addAndGet(MISS_REFRESH_INTERVAL.toNanos());
+		assertThat(cache.get(42)).isNull();
+		verify(ticketStatusRepository, times(3)).findAll();
+	}
+
+	@Test
+	void concurrentColdReadsShareOneLoad() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		when(ticketStatusRepository.findAll()).thenAnswer(inv -> {
+			release.await(5, TimeUnit.SECONDS);
+			return List.of(status(1, "PENDING"));
+		});
+		ExecutorService readers = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<TicketStatus>> reads = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				reads.add(readers.submit(() -> cache.get(1)));
+			}
+			Thread.sleep(200);
+			release.countDown();
+
+			for (Future<TicketStatus> read : reads) {
+				assertThat(read.get(5, TimeUnit.SECONDS).getName()).isEqualTo("PENDING");
+			}
+			verify(ticketStatusRepository, times(1)).findAll();
+		} finally {
+			readers.shutdownNow();
+		}
+	}
+
+	@Test
+	void transactionalReaderDoesNotWaitForAnotherLoad() throws Exception {
+		CountDownLatch leaderQuerying = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(ticketStatusRepository.findAll()).thenAnswer(inv -> {
+			leaderQuerying.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return List.of(status(1, "PENDING"));
+		}).thenReturn(List.of(status(1, "PENDING")));
+		ExecutorService readers = Executors.newFixedThreadPool(2);
+		try {
+			Future<TicketStatus> leader = readers.submit(() -> cache.get(1));
+			assertThat(leaderQuerying.await(5, TimeUnit.SECONDS)).isTrue();
+
+			Future<TicketStatus> transactional = readers.submit(() -> {
+				TransactionSynchronizationManager.setActualTransactionActive(true);
+				try {
+					return cache.get(1);
+				} finally {
+					TransactionSynchronizationManager.setActualTransactionActive(false);
+				}
+			});
+
+			assertThat(transactional.get(5, TimeUnit.SECONDS).getName()).isEqualTo("PENDING");
+			assertThat(leader).isNotDone();
+			release.countDown();
+			assertThat(leader.get(5, TimeUnit.SECONDS).getName()).isEqualTo("PENDING");
+		} finally {
+			release.countDown();
+			readers.shutdownNow();
+		}
+	}
+
+	private static TicketStatus status(int id, String name) {
+		TicketStatus status = new TicketStatus();
+		status.setIdTicketStatus(id);
+		status.setName(name);
+		return status;
+	}
+}
@@ -0,0 +1,115 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.planifikausersapi.usersapi.dto.UserImportProgress;
+import com.planifikausersapi.usersapi.dto.UserImportResult;
+import com.planifikausersapi.usersapi.dto.UserImportResult.Outcome;
+import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+
+/**
+ * Verifica que la importación haga un número de consultas proporcional a los lotes y no a las
+ * filas, y que reporte un resultado por fila.
+ */
+class UserImportServiceTest {
+
+	private static final int BATCH_SIZE = 2;
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+	private UserRepository userRepository;
+	private JdbcTemplate jdbcTemplate;
+	private UserImportService userImportService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		jdbcTemplate = mock(JdbcTemplate.class);
+		when(jdbcTemplate.queryForList(anyString(), eq(Long.class), anyInt()))
+				.thenAnswer(inv -> LongStream.rangeClosed(1, (int) inv.getArgument(2)).boxed().toList());
+		userImportService = new UserImportService(userRepository, jdbcTemplate,
+				TransactionOperations.withoutTransaction(), objectMapper, BATCH_SIZE);
+	}
+
+	@Test
+	void insertsInBatchesAndSkipsExistingUsers() {
+		UUID existing = UUID.randomUUID();
+		when(userRepository.findExistingSupabaseUserIds(any())).thenReturn(List.of(existing));
+
+		List<JsonNode> rows = List.of(
+				row(UUID.randomUUID(), "Ana"),
+				row(existing, "Beto"),
+				row(UUID.randomUUID(), "Carla"),
+				row(UUID.randomUUID(), "Dani"),
+				row(UUID.randomUUID(), "Eva"));
+
+		List<UserImportResult> results = new ArrayList<>();
+		List<UserImportProgress> progress = new ArrayList<>();
+		UserImportProgress summary = userImportService.importUsers(rows.iterator(), (batch, p) -> {
+			results.addAll(batch);
+			progress.add(p);
+		});
+
+		assertThat(summary.processed()).isEqualTo(5);
+		assertThat(summary.created()).isEqualTo(4);
+		assertThat(summary.skipped()).isEqualTo(1);
+		assertThat(summary.done()).isTrue();
+		assertThat(results).hasSize(5);
+		assertThat(results).filteredOn(r -> r.row() == 2).singleElement()
+				.extracting(UserImportResult::outcome).isEqualTo(Outcome.SKIPPED_EXISTING);
+		assertThat(progress).hasSize(3);
+
+		// 3 lotes: una búsqueda de existentes, una reserva de ids y un batch INSERT por lote
+		verify(userRepository, times(3)).findExistingSupabaseUserIds(any());
+		verify(jdbcTemplate, times(3)).queryForList(anyString(), eq(Long.class), anyInt());
+		verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList(), any(int[].class));
+	}
+
+	@Test
+	void reportsInvalidAndDuplicatedRowsWithoutTouchingTheDatabase() {
+		UUID repeated = UUID.randomUUID();
+		List<JsonNode> rows = List.of(
+				objectMapper.createObjectNode().put("name", "Sin id"),
+				objectMapper.createObjectNode().put("supabaseUserId", "no-es-uuid").put("name", "X"),
+				row(repeated, "Ana"),
+				row(repeated, "Ana otra vez"));
+		when(userRepository.findExistingSupabaseUserIds(any())).thenReturn(List.of());
+
+		List<UserImportResult> results = new ArrayList<>();
+		UserImportProgress summary = userImportService.importUsers(rows.iterator(),
+				(batch, p) -> results.addAll(batch));
+
+		assertThat(summary.invalid()).isEqualTo(2);
+		assertThat(summary.skipped()).isEqualTo(1);
+		assertThat(summary.created()).isEqualTo(1);
+		assertThat(results).extracting(UserImportResult::row).containsExactlyInAnyOrder(1L, 2L, 3L, 4L);
+		verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), any(int[].class));
+	}
+
+	private JsonNode row(UUID supabaseUserId, String name) {
+		return objectMapper.createObjectNode()
+				.put("supabaseUserId", supabaseUserId.toString())
+				.put("name", name)
+				.put("idUserType", 3);
+	}
+}
@@ -0,0 +1,129 @@
+package com.planifikausersapi.usersapi.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.planifikausersapi.usersapi.cache.UserPlanifikaCache;
+import com.planifikausersapi.usersapi.model.planifika.UserPlanifika;
+import com.planifikausersapi.usersapi.repository.planifika.UserRepository;
+import com.planifikausersapi.usersapi.utils.CursorPage;
+
+/**
+ * La paginación por cursor pide una fila de más para saber si sigue y el recorrido por bloques
+ * avanza por keyset hasta el primer bloque incompleto.
+ */
+class UserServiceTest {
+
+	private UserRepository userRepository;
+	private UserService userService;
+
+	@BeforeEach
+	void setUp() {
+		userRepository = mock(UserRepository.class);
+		userService = new UserService(userRepository, mock(UserPlanifikaCache.class));
+	}
+
+	@Test
+	void fullPageCarriesTheCursorOfItsLastRow() {
+		when(userRepository.findPageAfter(isNull(), isNull(), isNull(), isNull(), eq(Limit.of(3))))
+				.thenReturn(users(1, 3));
+
+		CursorPage<UserPlanifika> page = userService.findPage(null, 2, null, null, null);
+
+		assertThat(page.getItems()).extracting(UserPlanifika::getIdUser).containsExactly(1, 2);
+		assertThat(page.getNextCursor()).isEqualTo(2);
+		assertThat(page.isHasNext()).isTrue();
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		when(userRepository.findPageAfter(eq(2), isNull(), isNull(), isNull(), eq(Limit.of(3))))
+				.thenReturn(users(3, 4));
+
+		CursorPage<UserPlanifika> page = userService.findPage(2, 2, null, null, null);
+
+		assertThat(page.getItems()).extracting(UserPlanifika::getIdUser).containsExactly(3, 4);
+		assertThat(page.getNextCursor()).isNull();
+		assertThat(page.isHasNext()).isFalse();
+	}
+
+	@Test
+	void cursorPastTheEndGivesAnEmptyPage() {
+		when(userRepository.findPageAfter(eq(999), isNull(), isNull(), isNull(), any(Limit.class)))
+				.thenReturn(List.of());
+
+		CursorPage<UserPlanifika> page = userService.findPage(999, 100, null, null, null);
+
+		assertThat(page.getItems()).isEmpty();
+		assertThat(page.getNextCursor()).isNull();
+		assertThat(page.isHasNext()).isFalse();
+	}
+
+	@Test
+	void pageSizeIsClampedAndFiltersArePassedThrough() {
+		when(userRepository.findPageAfter(any(), any(), any(), any(), any(Limit.class))).thenReturn(List.of());
+
+		userService.findPage(null, 0, 5, 1, 3);
+		userService.findPage(null, 10_000, 5, 1, 3);
+
+		verify(userRepository).findPageAfter(null, 5, 1, 3, Limit.of(2));
+		verify(userRepository).findPageAfter(null, 5, 1, 3, Limit.of(UserService.MAX_PAGE_SIZE + 1));
+	}
+
+	@Test
+	void forEachChunkWalksByKeysetUntilAShortChunk() {
+		when(userRepository.findPageAfter(isNull(), isNull(), isNull(), isNull(), eq(Limit.of(2))))
+				.thenReturn(users(1, 2));
+		when(userRepository.findPageAfter(eq(2), isNull(), isNull(), isNull(), eq(Limit.of(2))))
+				.thenReturn(users(3, 4));
+		when(userRepository.findPageAfter(eq(4), isNull(), isNull(), isNull(), eq(Limit.of(2))))
+				.thenReturn(users(5, 5));
+		List<List<Integer>> chunks = new ArrayList<>();
+
+		userService.forEachChunk(null, null, null, 2, chunk -> chunks.add(ids(chunk)));
+
+		assertThat(chunks).containsExactly(List.of(1, 2), List.of(3, 4), List.of(5));
+		verify(userRepository, times(3)).findPageAfter(any(), any(), any(), any(), any(Limit.class));
+	}
+
+	@Test
+	void forEachChunkStopsOnAnEmptyChunkWithoutCallingTheConsumer() {
+		when(userRepository.findPageAfter(isNull(), eq(5), isNull(), isNull(), eq(Limit.of(2))))
+				.thenReturn(users(1, 2));
+		when(userRepository.findPageAfter(eq(2), eq(5), isNull(), isNull(), eq(Limit.of(2))))
+				.thenReturn(List.of());
+		List<List<Integer>> chunks = new ArrayList<>();
+
+		userService.forEachChunk(5, null, null, 2, chunk -> chunks.add(ids(chunk)));
+
+		assertThat(chunks).containsExactly(List.of(1, 2));
+		verify(userRepository, times(2)).findPageAfter(any(), any(), any(), any(), any(Limit.class));
+	}
+
+	private static List<Integer> ids(List<UserPlanifika> users) {
+		return users.stream().map(UserPlanifika::getIdUser).toList();
+	}
+
+	private static List<UserPlanifika> users(int fromId, int toId) {
+		return IntStream.rangeClosed(fromId, toId).mapToObj(id -> {
+			UserPlanifika user = new UserPlanifika();
+			user.setIdUser(id);
+			user.setName("Usuario " + id);
+			return user;
+		}).toList();
+	}
+}